@@ -0,0 +1,50 @@
+package com.clone.notion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for background work, one per kind so that one cannot starve another.
+ * Defining them replaces Spring Boot's shared applicationTaskExecutor.
+ */
+@Configuration
+public class AsyncConfig {
+
+    public static final String MENTION_FAN_OUT_EXECUTOR = "mentionFanOutExecutor";
+    public static final String COMMENT_EVENT_EXECUTOR = "commentEventExecutor";
+
+    /**
+     * Runs @Async mention fan-out (Mongo writes only).
+     */
+    @Bean(name = MENTION_FAN_OUT_EXECUTOR)
+    public ThreadPoolTaskExecutor mentionFanOutExecutor(
+            @Value("${mentions.fan-out.threads:4}") int threads,
+            @Value("${mentions.fan-out.queue-capacity:10000}") int queueCapacity) {
+        return fixedPool("mention-fan-out-", threads, queueCapacity);
+    }
+
+    /**
+     * Drains comment event queues into SSE streams. Each send is a blocking servlet
+     * write that can hang on a slow client until the connector's write timeout
+     * (server.tomcat.connection-timeout), so there are enough threads for several
+     * such clients at once without holding up the others.
+     */
+    @Bean(name = COMMENT_EVENT_EXECUTOR)
+    public ThreadPoolTaskExecutor commentEventExecutor(
+            @Value("${comments.events.send-threads:64}") int threads) {
+        return fixedPool("comment-events-", threads, Integer.MAX_VALUE);
+    }
+
+    private ThreadPoolTaskExecutor fixedPool(String threadNamePrefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // A pool only grows past its core size once the queue is full, so core and max are the same
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
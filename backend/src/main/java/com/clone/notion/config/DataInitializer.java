@@ -3,6 +3,7 @@ package com.clone.notion.config;
 import com.clone.notion.model.ERole;
 import com.clone.notion.model.Role;
 import com.clone.notion.repository.RoleRepository;
+import com.clone.notion.service.PageLinkService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private PageLinkService pageLinkService;
+
     @Override
     public void run(String... args) throws Exception {
         // Initialize roles if they don't exist
@@ -31,5 +35,8 @@ public class DataInitializer implements CommandLineRunner {
 
             System.out.println("Roles initialized successfully");
         }
+
+        // Populate link-text search fields on links created before they existed
+        pageLinkService.backfillLinkSearchFields();
     }
 } 
\ No newline at end of file
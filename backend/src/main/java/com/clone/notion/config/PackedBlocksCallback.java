@@ -0,0 +1,31 @@
+package com.clone.notion.config;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.service.BlockCodec;
+
+/**
+ * Unpacks cold pages as they are read, so the rest of the code only ever sees
+ * 'blocks'. The next full save of the page writes it back unpacked.
+ */
+@Component
+public class PackedBlocksCallback implements AfterConvertCallback<Page> {
+
+    @Override
+    public Page onAfterConvert(Page page, Document document, String collection) {
+        if (page.getPackedBlocks() != null) {
+            try {
+                page.setBlocks(BlockCodec.decode(page.getPackedBlocks()));
+                page.setPackedBlocks(null);
+                page.setPackedText(null);
+            } catch (IllegalArgumentException e) {
+                // Left packed so a save cannot drop the content
+                System.out.println("[ERROR] Failed to unpack blocks of page " + page.getId() + ": " + e.getMessage());
+            }
+        }
+        return page;
+    }
+}
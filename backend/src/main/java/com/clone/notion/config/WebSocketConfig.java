@@ -0,0 +1,45 @@
+package com.clone.notion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+import com.clone.notion.websocket.PresenceHandshakeInterceptor;
+import com.clone.notion.websocket.PresenceWebSocketHandler;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final PresenceWebSocketHandler presenceWebSocketHandler;
+    private final PresenceHandshakeInterceptor presenceHandshakeInterceptor;
+
+    @Value("${presence.max-message-bytes:8192}")
+    private int maxMessageBytes;
+
+    @Value("${presence.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(presenceWebSocketHandler, "/ws/presence")
+            .addInterceptors(presenceHandshakeInterceptor)
+            .setAllowedOriginPatterns("*");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        // Presence messages are small; anything bigger is rejected by the container
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMs);
+        return container;
+    }
+}
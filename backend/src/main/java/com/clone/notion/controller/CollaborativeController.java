@@ -6,15 +6,32 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.clone.notion.model.Page;
+import com.clone.notion.payload.request.OperationBatchRequest;
+import com.clone.notion.payload.request.SyncContentRequest;
+import com.clone.notion.payload.response.OperationBatchResponse;
+import com.clone.notion.payload.response.PageVersionResponse;
+import com.clone.notion.payload.response.PageVersionSummary;
+import com.clone.notion.payload.response.PresenceResponse;
+import com.clone.notion.payload.response.VersionDiffResponse;
+import com.clone.notion.service.CollaborativeRateLimiter;
+import com.clone.notion.service.ContentSyncBuffer;
+import com.clone.notion.service.PageOperationService;
 import com.clone.notion.service.PageService;
+import com.clone.notion.service.PageShareService;
+import com.clone.notion.service.PageVersionService;
+import com.clone.notion.service.PresenceService;
+import com.clone.notion.service.SyncPayloadReader;
 import com.clone.notion.service.LocalStorageService;
 import com.clone.notion.security.services.UserDetailsImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -25,12 +42,24 @@ public class CollaborativeController {
 
     private final PageService pageService;
     private final LocalStorageService localStorageService;
+    private final PageShareService pageShareService;
+    private final PresenceService presenceService;
+    private final PageOperationService pageOperationService;
+    private final ContentSyncBuffer contentSyncBuffer;
+    private final PageVersionService pageVersionService;
+    private final SyncPayloadReader syncPayloadReader;
+    private final CollaborativeRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
 
     private UserDetailsImpl getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (UserDetailsImpl) authentication.getPrincipal();
     }
 
+    private static <T> ResponseEntity<T> tooManyRequests() {
+        return ResponseEntity.status(429).header("Retry-After", "1").build();
+    }
+
     @PostMapping("/pages/{pageId}/initialize")
     public ResponseEntity<Map<String, String>> initializeCollaborativePage(@PathVariable String pageId) {
         try {
@@ -56,20 +85,38 @@ public class CollaborativeController {
     }
 
     @PostMapping("/pages/{pageId}/sync-content")
-    public ResponseEntity<Page> syncContentFromConvex(
+    public ResponseEntity<Map<String, Object>> syncContentFromConvex(
             @PathVariable String pageId,
-            @RequestBody Map<String, Object> convexData) {
+            HttpServletRequest request) {
         try {
             String userId = getAuthenticatedUser().getId();
-            
-            // Create a page object from Convex data
-            Page convexPage = Page.builder()
-                    .title((String) convexData.get("title"))
-                    .blocks((List<com.clone.notion.model.Block>) convexData.get("blocks"))
-                    .build();
-
-            Page synced = pageService.syncWithConvex(pageId, convexPage, userId);
-            return synced != null ? ResponseEntity.ok(synced) : ResponseEntity.status(403).build();
+
+            if (!pageShareService.hasAccess(pageId, userId, "edit")) {
+                return ResponseEntity.status(403).build();
+            }
+            if (!rateLimiter.tryAcquire(CollaborativeRateLimiter.Action.SYNC_CONTENT, userId, pageId)) {
+                return tooManyRequests();
+            }
+
+            SyncContentRequest content = syncPayloadReader.read(request.getInputStream(), request.getContentLengthLong());
+            // Buffered; only the latest content per page is written, at most once per interval
+            contentSyncBuffer.submit(pageId, userId, content.getTitle(), content.getBlocks());
+            return ResponseEntity.accepted().body(Map.of(
+                "pageId", pageId,
+                "buffered", true
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/sync/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSyncStats() {
+        try {
+            return ResponseEntity.ok(contentSyncBuffer.getStats());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -107,6 +154,49 @@ public class CollaborativeController {
         }
     }
 
+    @PostMapping("/pages/{pageId}/operations")
+    public ResponseEntity<OperationBatchResponse> applyOperations(
+            @PathVariable String pageId,
+            @RequestBody OperationBatchRequest request) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+
+            if (!pageShareService.hasAccess(pageId, userId, "edit")) {
+                return ResponseEntity.status(403).build();
+            }
+            if (!rateLimiter.tryAcquire(CollaborativeRateLimiter.Action.OPERATIONS, userId, pageId)) {
+                return tooManyRequests();
+            }
+
+            OperationBatchResponse response = pageOperationService.applyOperations(
+                pageId, userId, request.getBaseRevision(), request.getOperations());
+            return response != null ? ResponseEntity.ok(response) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/pages/{pageId}/operations")
+    public ResponseEntity<OperationBatchResponse> getOperations(
+            @PathVariable String pageId,
+            @RequestParam(defaultValue = "0") long since) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+
+            return ResponseEntity.ok(pageOperationService.getOperationsSince(pageId, since));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/pages/search")
     public ResponseEntity<List<Page>> searchCollaborativePages(@RequestParam String query) {
         try {
@@ -127,24 +217,24 @@ public class CollaborativeController {
     @PostMapping("/pages/{pageId}/merge")
     public ResponseEntity<Page> mergeConvexChanges(
             @PathVariable String pageId,
-            @RequestBody Map<String, Object> mergeData) {
+            HttpServletRequest request) {
         try {
             String userId = getAuthenticatedUser().getId();
             
-            // Extract merge data
-            String title = (String) mergeData.get("title");
-            List<com.clone.notion.model.Block> blocks = (List<com.clone.notion.model.Block>) mergeData.get("blocks");
-            String conflictResolution = (String) mergeData.get("resolution"); // "convex" or "local"
-            
             Page page = pageService.findById(pageId);
             if (page == null || (page.getUserId() == null || !page.getUserId().equals(userId))) {
                 return ResponseEntity.notFound().build();
             }
+            if (!rateLimiter.tryAcquire(CollaborativeRateLimiter.Action.MERGE, userId, pageId)) {
+                return tooManyRequests();
+            }
+
+            SyncContentRequest mergeData = syncPayloadReader.read(request.getInputStream(), request.getContentLengthLong());
 
             // Apply merge based on conflict resolution strategy
-            if ("convex".equals(conflictResolution)) {
-                page.setTitle(title);
-                page.setBlocks(blocks);
+            if ("convex".equals(mergeData.getResolution())) {
+                page.setTitle(mergeData.getTitle());
+                page.setBlocks(mergeData.getBlocks());
             }
             // If "local", keep existing content
             
@@ -152,6 +242,8 @@ public class CollaborativeController {
             Page merged = pageService.update(pageId, page, userId);
             
             return merged != null ? ResponseEntity.ok(merged) : ResponseEntity.status(403).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -166,19 +258,19 @@ public class CollaborativeController {
         try {
             String userId = getAuthenticatedUser().getId();
             String username = getAuthenticatedUser().getUsername();
-            
-            // Store presence information in localStorage
-            String presenceKey = "presence:" + pageId + ":" + userId;
-            Map<String, Object> presence = Map.of(
-                "userId", userId,
-                "username", username,
-                "timestamp", Instant.now().toString(),
-                "cursor", presenceData.get("cursor"),
-                "selection", presenceData.get("selection")
-            );
-            
-            localStorageService.setUserItem(userId, presenceKey, presence.toString());
-            
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+            if (!rateLimiter.tryAcquire(CollaborativeRateLimiter.Action.PRESENCE, userId, pageId)) {
+                return tooManyRequests();
+            }
+
+            // REST fallback for clients without the /ws/presence socket
+            presenceService.updateViaHttp(pageId, userId, username,
+                objectMapper.valueToTree(presenceData.get("cursor")),
+                objectMapper.valueToTree(presenceData.get("selection")));
+
             return ResponseEntity.ok(Map.of(
                 "message", "Presence updated",
                 "userId", userId,
@@ -190,15 +282,35 @@ public class CollaborativeController {
     }
 
     @GetMapping("/pages/{pageId}/presence")
-    public ResponseEntity<List<Map<String, Object>>> getPresence(@PathVariable String pageId) {
+    public ResponseEntity<List<PresenceResponse>> getPresence(@PathVariable String pageId) {
         try {
             String userId = getAuthenticatedUser().getId();
-            
-            // Get all presence data for this page
-            // This is a simplified implementation - in production, you'd use a more sophisticated approach
-            List<Map<String, Object>> presenceList = List.of();
-            
-            return ResponseEntity.ok(presenceList);
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+
+            return ResponseEntity.ok(presenceService.getPresence(pageId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/rate-limit/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        try {
+            return ResponseEntity.ok(rateLimiter.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/presence/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPresenceStats() {
+        try {
+            return ResponseEntity.ok(presenceService.getStats());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -283,30 +395,53 @@ public class CollaborativeController {
     }
 
     @GetMapping("/pages/{pageId}/version-history")
-    public ResponseEntity<List<Map<String, Object>>> getVersionHistory(@PathVariable String pageId) {
+    public ResponseEntity<List<PageVersionSummary>> getVersionHistory(
+            @PathVariable String pageId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
             String userId = getAuthenticatedUser().getId();
-            Page page = pageService.findById(pageId);
-            
-            if (page == null || (page.getUserId() == null || !page.getUserId().equals(userId))) {
-                return ResponseEntity.notFound().build();
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
             }
 
-            // Get version history (simplified implementation)
-            List<Map<String, Object>> versions = List.of(
-                Map.of(
-                    "version", 1,
-                    "timestamp", page.getCreatedAt().toString(),
-                    "action", "created"
-                ),
-                Map.of(
-                    "version", 2,
-                    "timestamp", page.getUpdatedAt().toString(),
-                    "action", "updated"
-                )
-            );
-            
-            return ResponseEntity.ok(versions);
+            return ResponseEntity.ok(pageVersionService.listVersions(pageId, before, limit));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/pages/{pageId}/versions/{version}")
+    public ResponseEntity<PageVersionResponse> getVersion(@PathVariable String pageId, @PathVariable long version) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+
+            PageVersionResponse response = pageVersionService.getVersion(pageId, version);
+            return response != null ? ResponseEntity.ok(response) : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/pages/{pageId}/versions/diff")
+    public ResponseEntity<VersionDiffResponse> diffVersions(
+            @PathVariable String pageId,
+            @RequestParam long from,
+            @RequestParam long to) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+
+            VersionDiffResponse response = pageVersionService.diff(pageId, from, to);
+            return response != null ? ResponseEntity.ok(response) : ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -3,14 +3,23 @@ package com.clone.notion.controller;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.clone.notion.model.Comment;
+import com.clone.notion.model.MentionInboxEntry;
+import com.clone.notion.payload.request.CommentCountRequest;
+import com.clone.notion.payload.response.CommentCountResponse;
+import com.clone.notion.payload.response.CommentThreadPage;
 import com.clone.notion.service.CommentService;
+import com.clone.notion.service.PageShareService;
 import com.clone.notion.security.services.UserDetailsImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,6 +30,7 @@ import lombok.RequiredArgsConstructor;
 public class CommentController {
 
     private final CommentService commentService;
+    private final PageShareService pageShareService;
 
     private UserDetailsImpl getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -37,6 +47,48 @@ public class CommentController {
         }
     }
 
+    @GetMapping("/page/{pageId}/threads")
+    public ResponseEntity<CommentThreadPage> getCommentThreads(
+            @PathVariable String pageId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(commentService.getCommentThreads(pageId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping(value = "/page/{pageId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCommentEvents(@PathVariable String pageId) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            SseEmitter emitter = commentService.subscribeToPage(pageId);
+            if (emitter == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.ok(emitter);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/events/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        try {
+            return ResponseEntity.ok(commentService.getEventStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/page/{pageId}/block/{blockId}")
     public ResponseEntity<List<Comment>> getCommentsForBlock(
             @PathVariable String pageId, 
@@ -125,6 +177,50 @@ public class CommentController {
         }
     }
 
+    @GetMapping("/mentions/inbox")
+    public ResponseEntity<List<MentionInboxEntry>> getMentionInbox(
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            return ResponseEntity.ok(commentService.getMentionInbox(userId, before, limit, unreadOnly));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/mentions/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadMentionCount() {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            return ResponseEntity.ok(Map.of("count", commentService.getUnreadMentionCount(userId)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/mentions/read")
+    public ResponseEntity<Map<String, Long>> markMentionsRead(@RequestBody Map<String, List<String>> request) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            long marked = commentService.markMentionsRead(userId, request.get("ids"));
+            return ResponseEntity.ok(Map.of("marked", marked));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/mentions/read-all")
+    public ResponseEntity<Map<String, Long>> markAllMentionsRead() {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            return ResponseEntity.ok(Map.of("marked", commentService.markAllMentionsRead(userId)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/page/{pageId}/unresolved")
     public ResponseEntity<List<Comment>> getUnresolvedComments(@PathVariable String pageId) {
         try {
@@ -145,6 +241,29 @@ public class CommentController {
         }
     }
 
+    @PostMapping("/counts")
+    public ResponseEntity<Map<String, CommentCountResponse>> getCommentCounts(@RequestBody CommentCountRequest request) {
+        try {
+            if (request.getPageIds() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(commentService.getCommentCounts(request.getPageIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/page/{pageId}/block-counts")
+    public ResponseEntity<Map<String, CommentCountResponse>> getBlockCommentCounts(@PathVariable String pageId) {
+        try {
+            return ResponseEntity.ok(commentService.getBlockCommentCounts(pageId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @PostMapping("/validate-mentions")
     public ResponseEntity<Map<String, Boolean>> validateMentions(@RequestBody Map<String, String> request) {
         try {
@@ -1,12 +1,17 @@
 package com.clone.notion.controller;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.clone.notion.model.Page;
+import com.clone.notion.payload.response.PageViewStatsResponse;
+import com.clone.notion.service.ColdPageService;
 import com.clone.notion.service.PageService;
+import com.clone.notion.service.PageViewService;
 import com.clone.notion.security.services.UserDetailsImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,6 +26,8 @@ import lombok.RequiredArgsConstructor;
 public class PageController {
 
     private final PageService pageService;
+    private final PageViewService pageViewService;
+    private final ColdPageService coldPageService;
 
     private UserDetailsImpl getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -49,12 +56,28 @@ public class PageController {
             if (page == null || page.getUserId() == null || !page.getUserId().equals(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            pageViewService.recordView(id, userId, false);
             return ResponseEntity.ok(page);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/{id}/views")
+    public ResponseEntity<PageViewStatsResponse> getViewStats(@PathVariable String id) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            Page page = pageService.findById(id);
+
+            if (page == null || page.getUserId() == null || !page.getUserId().equals(userId)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(pageViewService.getStats(id));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<Page> create(@RequestBody Page page) {
         try {
@@ -232,4 +255,14 @@ public class PageController {
             return ResponseEntity.internalServerError().build();
         }
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/cold-storage/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getColdStorageStats() {
+        try {
+            return ResponseEntity.ok(coldPageService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -4,11 +4,17 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.clone.notion.model.Page;
 import com.clone.notion.model.PageLink;
+import com.clone.notion.payload.response.BacklinkResponse;
+import com.clone.notion.payload.response.LinkIntegrityReport;
+import com.clone.notion.service.LinkIntegrityService;
 import com.clone.notion.service.PageLinkService;
+import com.clone.notion.service.PageRankService;
+import com.clone.notion.service.PageShareService;
 import com.clone.notion.security.services.UserDetailsImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +28,9 @@ import lombok.RequiredArgsConstructor;
 public class PageLinkController {
 
     private final PageLinkService pageLinkService;
+    private final LinkIntegrityService linkIntegrityService;
+    private final PageRankService pageRankService;
+    private final PageShareService pageShareService;
 
     private UserDetailsImpl getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -77,6 +86,20 @@ public class PageLinkController {
         }
     }
 
+    @GetMapping("/to/{pageId}/context")
+    public ResponseEntity<List<BacklinkResponse>> getBacklinksWithContext(@PathVariable String pageId) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            if (!pageShareService.hasAccess(pageId, userId, "view")) {
+                return ResponseEntity.status(403).build();
+            }
+            List<BacklinkResponse> backlinks = pageLinkService.getBacklinksWithContext(pageId, userId);
+            return ResponseEntity.ok(backlinks);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/{pageId}/linked-pages")
     public ResponseEntity<List<Page>> getLinkedPages(@PathVariable String pageId) {
         try {
@@ -108,6 +131,17 @@ public class PageLinkController {
         }
     }
 
+    @GetMapping("/most-referenced")
+    public ResponseEntity<List<Page>> getMostReferencedPages(@RequestParam(defaultValue = "10") int limit) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            List<Page> pages = pageRankService.getMostReferencedPages(userId, limit);
+            return ResponseEntity.ok(pages);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @DeleteMapping("/page/{pageId}")
     public ResponseEntity<Void> removeAllLinksForPage(@PathVariable String pageId) {
         try {
@@ -117,4 +151,15 @@ public class PageLinkController {
             return ResponseEntity.badRequest().build();
         }
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/integrity")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<LinkIntegrityReport> getIntegrityReport() {
+        try {
+            LinkIntegrityReport report = linkIntegrityService.getLastReport();
+            return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
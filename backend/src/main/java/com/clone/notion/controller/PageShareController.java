@@ -5,11 +5,17 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import com.clone.notion.model.PageShare;
 import com.clone.notion.model.Permission;
+import com.clone.notion.payload.request.BulkShareRequest;
+import com.clone.notion.payload.response.BulkShareResponse;
+import com.clone.notion.payload.response.SharedPageResponse;
+import com.clone.notion.payload.response.SharedWithMeResponse;
 import com.clone.notion.service.PageShareService;
+import com.clone.notion.service.PageViewService;
 import com.clone.notion.security.services.UserDetailsImpl;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,6 +29,7 @@ import lombok.RequiredArgsConstructor;
 public class PageShareController {
 
     private final PageShareService pageShareService;
+    private final PageViewService pageViewService;
 
     private UserDetailsImpl getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -52,6 +59,24 @@ public class PageShareController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkShareResponse> sharePagesWithUsers(@RequestBody BulkShareRequest request) {
+        try {
+            String sharedByUserId = getAuthenticatedUser().getId();
+            if (request.getPageIds() == null || request.getUserIds() == null || request.getPermission() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            BulkShareResponse response = pageShareService.sharePagesWithUsers(
+                request.getPageIds(), request.getUserIds(), sharedByUserId, request.getPermission());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @PostMapping("/page/{pageId}/public")
     public ResponseEntity<PageShare> createPublicShare(
             @PathVariable String pageId,
@@ -112,6 +137,18 @@ public class PageShareController {
         }
     }
 
+    @GetMapping("/shared-with-me")
+    public ResponseEntity<SharedWithMeResponse> getSharedWithMe(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            String userId = getAuthenticatedUser().getId();
+            return ResponseEntity.ok(pageShareService.getSharedWithMe(userId, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/link/{shareLink}")
     public ResponseEntity<PageShare> getShareByLink(@PathVariable String shareLink) {
         try {
@@ -123,6 +160,36 @@ public class PageShareController {
         }
     }
 
+    @GetMapping("/link/{shareLink}/page")
+    public ResponseEntity<SharedPageResponse> getSharedPageByLink(@PathVariable String shareLink) {
+        try {
+            String viewerId = getAuthenticatedUser().getId();
+            return pageShareService.resolveShareLink(shareLink)
+                .map(snapshot -> {
+                    pageViewService.recordView(snapshot.page().getId(), viewerId, true);
+                    return snapshot;
+                })
+                .map(snapshot -> SharedPageResponse.builder()
+                    .share(snapshot.share())
+                    .page(snapshot.page())
+                    .build())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/link-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getShareLinkCacheStats() {
+        try {
+            return ResponseEntity.ok(pageShareService.getShareLinkCacheStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @PostMapping("/page/{pageId}/access")
     public ResponseEntity<Map<String, Boolean>> checkAccess(
             @PathVariable String pageId,
@@ -210,11 +277,10 @@ public class PageShareController {
     }
 
     @PostMapping("/cleanup")
-    public ResponseEntity<Map<String, Integer>> cleanupExpiredShares() {
+    public ResponseEntity<Map<String, Long>> cleanupExpiredShares() {
         try {
-            List<PageShare> expiredShares = pageShareService.getExpiredShares();
-            pageShareService.cleanupExpiredShares();
-            return ResponseEntity.ok(Map.of("cleanedShares", expiredShares.size()));
+            long cleanedShares = pageShareService.cleanupExpiredShares();
+            return ResponseEntity.ok(Map.of("cleanedShares", cleanedShares));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -0,0 +1,26 @@
+package com.clone.notion.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One block-level edit. Positions are given by block id rather than index, so
+ * concurrent inserts and moves elsewhere in the page do not shift them.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockOperation {
+    private String id; // Client-generated, used to drop retried operations
+    private OperationType type;
+    private String blockId;
+    private String afterBlockId; // INSERT/MOVE target, null for the top; for DELETE the block's predecessor
+    private Block block; // INSERT_BLOCK
+    private String content; // UPDATE_BLOCK fields, null means unchanged
+    private String blockType;
+    private Boolean checked;
+    private String title; // SET_TITLE
+}
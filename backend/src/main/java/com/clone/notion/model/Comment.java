@@ -4,6 +4,8 @@ import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -16,6 +18,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "comments")
+@CompoundIndexes({
+    // Matches the thread list's sort, including the _id tiebreak, so pages are read straight off the index
+    @CompoundIndex(name = "page_thread_created_id_idx", def = "{'pageId': 1, 'parentCommentId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "parent_created_idx", def = "{'parentCommentId': 1, 'createdAt': 1}")
+})
 public class Comment {
 
     @Id
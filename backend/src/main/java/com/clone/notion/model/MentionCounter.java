@@ -0,0 +1,25 @@
+package com.clone.notion.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "mention_counters")
+public class MentionCounter {
+
+    @Id
+    private String userId;
+
+    private long unread; // Maintained with $inc alongside mention_inbox writes
+    private Instant updatedAt;
+}
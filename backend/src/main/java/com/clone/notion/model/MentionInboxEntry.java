@@ -0,0 +1,39 @@
+package com.clone.notion.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "mention_inbox")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_comment_idx", def = "{'userId': 1, 'commentId': 1}", unique = true),
+    @CompoundIndex(name = "user_read_idx", def = "{'userId': 1, 'read': 1, '_id': -1}")
+})
+public class MentionInboxEntry {
+
+    @Id
+    private String id;
+
+    private String userId; // Mentioned user
+    private String commentId;
+    private String parentCommentId; // Set when the mention is in a reply
+    private String pageId;
+    private String blockId;
+    private String authorId;
+    private String authorUsername;
+    private String snippet; // Start of the comment content
+    private boolean read;
+    private Instant createdAt;
+}
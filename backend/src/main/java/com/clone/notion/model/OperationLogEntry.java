@@ -0,0 +1,41 @@
+package com.clone.notion.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One accepted batch of operations. Revisions are consecutive per page; the
+ * unique index lets only one batch at a time claim the next revision. An entry
+ * is pending until its page write has succeeded, and readers skip pending entries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "page_operation_log")
+@CompoundIndexes({
+    @CompoundIndex(name = "page_revision_idx", def = "{'pageId': 1, 'revision': -1}", unique = true),
+    @CompoundIndex(name = "page_operation_id_idx", def = "{'pageId': 1, 'operations.id': 1}")
+})
+public class OperationLogEntry {
+
+    @Id
+    private String id;
+
+    private String pageId;
+    private long revision;
+    private String userId;
+    private List<BlockOperation> operations; // As applied, after rebasing
+    private Instant createdAt;
+    private Boolean pending; // Absent once committed
+}
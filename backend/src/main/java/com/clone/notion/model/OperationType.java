@@ -0,0 +1,10 @@
+package com.clone.notion.model;
+
+public enum OperationType {
+    INSERT_BLOCK,
+    UPDATE_BLOCK,
+    DELETE_BLOCK,
+    MOVE_BLOCK,
+    SET_TITLE,
+    REPLACE_DOCUMENT // Recorded by the server when the whole page was overwritten; clients refetch
+}
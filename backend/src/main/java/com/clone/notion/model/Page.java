@@ -7,8 +7,11 @@ import java.util.List;
 import java.util.Set;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +22,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "pages")
+@CompoundIndex(name = "user_page_rank_idx", def = "{'userId': 1, 'pageRank': -1}")
 public class Page {
 
     @Id
@@ -36,11 +40,20 @@ public class Page {
 
     private List<Block> blocks;
 
+    // Cold pages: blocks packed by BlockCodec and 'blocks' unset. Unpacked on read by PackedBlocksCallback
+    @JsonIgnore
+    private byte[] packedBlocks;
+
+    // Cold pages: block contents as plain text, so search can match them in the query. Cleared with packedBlocks
+    @JsonIgnore
+    private String packedText;
+
     private String convexDocId; // ID for the document in Convex for collaborative editing
 
     // Page linking fields
     private Set<String> linkedPageIds; // Pages that this page links to
     private Set<String> backlinkPageIds; // Pages that link to this page
+    private Double pageRank; // Link-graph centrality, maintained by PageRankService
 
     private Instant createdAt;
 
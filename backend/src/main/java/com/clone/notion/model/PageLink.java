@@ -3,6 +3,7 @@ package com.clone.notion.model;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -15,6 +16,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "page_links")
+@CompoundIndex(name = "owner_link_text_idx", def = "{'ownerUserId': 1, 'linkTextLower': 1}")
 public class PageLink {
 
     @Id
@@ -23,9 +25,16 @@ public class PageLink {
     private String sourcePageId; // Page that contains the link
     private String targetPageId; // Page that is linked to
     private String linkText; // Optional text for the link
+    private String linkTextLower; // Normalized linkText for indexed prefix search
+    private String ownerUserId; // Owner of the source page, scopes link-text search
     private String blockId; // ID of the block containing the link
     private Integer position; // Position within the block
+    private String contextSnippet; // Sentence around the link, captured at extraction time
 
     private Instant createdAt;
     private Instant updatedAt;
+
+    public static String normalizeLinkText(String linkText) {
+        return linkText != null ? linkText.trim().toLowerCase() : null;
+    }
 } 
\ No newline at end of file
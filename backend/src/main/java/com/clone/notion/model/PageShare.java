@@ -3,6 +3,7 @@ package com.clone.notion.model;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -15,6 +16,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "page_shares")
+@CompoundIndex(name = "active_expires_idx", def = "{'active': 1, 'expiresAt': 1}")
+@CompoundIndex(name = "shared_with_active_idx", def = "{'sharedWithUserId': 1, 'active': 1}")
+// Public link filter refresh: public shares created since a time
+@CompoundIndex(name = "public_created_idx", def = "{'isPublic': 1, 'createdAt': 1}")
 public class PageShare {
 
     @Id
@@ -0,0 +1,53 @@
+package com.clone.notion.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One saved state of a page. Snapshots hold the full block list; the versions
+ * in between hold only a block-level delta against the previous version.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "page_versions")
+@CompoundIndex(name = "page_version_idx", def = "{'pageId': 1, 'version': -1}", unique = true)
+public class PageVersion {
+
+    @Id
+    private String id;
+
+    private String pageId;
+    private long version;
+    private boolean snapshot;
+    private String userId;
+    private Instant createdAt;
+    private Instant updatedAt; // Later than createdAt when saves were coalesced into this version
+
+    private String title;
+
+    // Snapshot, encoded by BlockCodec; blocks is only set on snapshots stored before the encoding
+    private byte[] packedBlocks;
+    private List<Block> blocks;
+
+    // Delta against the previous version
+    private List<String> removedBlockIds;
+    private List<Block> changedBlocks; // Added or modified, in full
+    private List<String> blockOrder; // Only when the order is not implied by the previous one
+
+    // Change summary against the previous version
+    private int blockCount;
+    private int added;
+    private int removed;
+    private int modified;
+}
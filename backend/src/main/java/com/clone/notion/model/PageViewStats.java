@@ -0,0 +1,29 @@
+package com.clone.notion.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "page_view_stats")
+public class PageViewStats {
+
+    @Id
+    private String pageId;
+
+    private long views;
+    private long publicViews; // Views through a public share link
+    private byte[] viewerSketch; // HyperLogLog registers of viewer ids
+    private Long sketchVersion; // Bumped by every flush, which only writes over the sketch it read
+    private Instant lastViewedAt;
+    private Instant updatedAt;
+}
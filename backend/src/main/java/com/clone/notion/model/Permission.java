@@ -24,7 +24,7 @@ public enum Permission {
 
     public static Permission fromValue(String value) {
         for (Permission permission : Permission.values()) {
-            if (permission.value.equals(value)) {
+            if (permission.value.equalsIgnoreCase(value)) {
                 return permission;
             }
         }
@@ -50,4 +50,19 @@ public enum Permission {
     public boolean canDelete() {
         return this == ADMIN;
     }
+
+    public boolean allows(Permission required) {
+        switch (required) {
+            case VIEW:
+                return canView();
+            case COMMENT:
+                return canComment();
+            case EDIT:
+                return canEdit();
+            case ADMIN:
+                return canDelete();
+            default:
+                return false;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.clone.notion.payload.request;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkShareRequest {
+    private List<String> pageIds;
+    private List<String> userIds; // Every page is shared with every user
+    private String permission;
+}
@@ -0,0 +1,10 @@
+package com.clone.notion.payload.request;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class CommentCountRequest {
+    private List<String> pageIds;
+}
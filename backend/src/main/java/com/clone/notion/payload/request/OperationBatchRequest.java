@@ -0,0 +1,13 @@
+package com.clone.notion.payload.request;
+
+import java.util.List;
+
+import com.clone.notion.model.BlockOperation;
+
+import lombok.Data;
+
+@Data
+public class OperationBatchRequest {
+    private Long baseRevision; // Last revision the client has applied
+    private List<BlockOperation> operations;
+}
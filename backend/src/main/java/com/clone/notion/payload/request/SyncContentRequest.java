@@ -0,0 +1,17 @@
+package com.clone.notion.payload.request;
+
+import java.util.List;
+
+import com.clone.notion.model.Block;
+
+import lombok.Data;
+
+/**
+ * Body of sync-content and merge, read by SyncPayloadReader.
+ */
+@Data
+public class SyncContentRequest {
+    private String title;
+    private List<Block> blocks;
+    private String resolution; // merge only: "convex" or "local"
+}
@@ -0,0 +1,24 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BacklinkResponse {
+    private String linkId;
+    private String sourcePageId;
+    private String sourcePageTitle;
+    private String sourcePageIcon;
+    private String blockId;
+    private String linkText;
+    private Integer position;
+    private String contextSnippet; // Sentence around the link in the source block
+    private Instant updatedAt;
+}
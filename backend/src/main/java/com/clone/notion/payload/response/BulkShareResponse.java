@@ -0,0 +1,31 @@
+package com.clone.notion.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkShareResponse {
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private List<PairResult> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PairResult {
+        private String pageId;
+        private String userId;
+        private String status; // "created", "updated", "unchanged" or "failed"
+        private String message; // Reason for failures
+    }
+}
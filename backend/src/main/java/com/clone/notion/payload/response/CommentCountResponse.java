@@ -0,0 +1,15 @@
+package com.clone.notion.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentCountResponse {
+    private long total; // Comments and replies, same as /page/{pageId}/count
+    private long unresolved; // Same as /page/{pageId}/unresolved
+}
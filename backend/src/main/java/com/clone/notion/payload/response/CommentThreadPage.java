@@ -0,0 +1,20 @@
+package com.clone.notion.payload.response;
+
+import java.util.List;
+
+import com.clone.notion.model.Comment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentThreadPage {
+    private List<Comment> threads; // Top-level comments, newest first, with replies loaded
+    private String nextCursor; // Pass back as ?cursor= for the next page, null on the last page
+    private boolean hasMore;
+}
@@ -0,0 +1,33 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkIntegrityReport {
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long durationMs;
+    private boolean completed; // False if the scan was interrupted
+
+    private long pagesScanned;
+    private long linksScanned;
+
+    // Repaired references
+    private long danglingLinkedPageRefs; // linkedPageIds entries pointing at deleted pages
+    private long danglingBacklinkPageRefs; // backlinkPageIds entries pointing at deleted pages
+    private long danglingParentRefs; // parentId pointing at a deleted page, moved to root
+    private long brokenLinksRemoved; // PageLink rows whose source or target is gone
+
+    // Reported only
+    private long orphanPages; // No parent and no backlinks
+    private List<String> orphanPageSample;
+}
@@ -0,0 +1,23 @@
+package com.clone.notion.payload.response;
+
+import java.util.List;
+
+import com.clone.notion.model.BlockOperation;
+import com.clone.notion.model.OperationLogEntry;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationBatchResponse {
+    private long revision; // Page revision after this call
+    private List<BlockOperation> applied; // The client's operations as applied, after rebasing
+    private List<String> dropped; // Ids of operations that no longer apply or were already applied
+    private List<OperationLogEntry> missed; // Other clients' batches after baseRevision, oldest first
+    private boolean resyncRequired; // Missed batches are no longer in the log; refetch the page
+}
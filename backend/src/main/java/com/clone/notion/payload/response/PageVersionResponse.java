@@ -0,0 +1,25 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.clone.notion.model.Block;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageVersionResponse {
+    private String pageId;
+    private long version;
+    private String title;
+    private List<Block> blocks;
+    private String userId;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageVersionSummary {
+    private long version;
+    private String title;
+    private String userId;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private int blockCount;
+    private int added;
+    private int removed;
+    private int modified;
+}
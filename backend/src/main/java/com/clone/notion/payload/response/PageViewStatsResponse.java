@@ -0,0 +1,20 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageViewStatsResponse {
+    private String pageId;
+    private long views;
+    private long publicViews;
+    private long uniqueViewers; // HyperLogLog estimate, about 1.6% error
+    private Instant lastViewedAt;
+}
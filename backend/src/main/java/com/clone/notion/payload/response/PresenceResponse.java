@@ -0,0 +1,22 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceResponse {
+    private String userId;
+    private String username;
+    private JsonNode cursor;
+    private JsonNode selection;
+    private Instant lastSeen;
+}
@@ -0,0 +1,18 @@
+package com.clone.notion.payload.response;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.model.PageShare;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SharedPageResponse {
+    private PageShare share;
+    private Page page;
+}
@@ -0,0 +1,38 @@
+package com.clone.notion.payload.response;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SharedWithMeResponse {
+    private List<Item> items;
+    private long total;
+    private int page;
+    private int size;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String shareId;
+        private String pageId;
+        private String title;
+        private String icon;
+        private String ownerId;
+        private String ownerUsername;
+        private String permission;
+        private String sharedByUserId;
+        private Instant sharedAt;
+        private Instant expiresAt;
+        private Instant updatedAt; // Last update of the page
+    }
+}
@@ -0,0 +1,35 @@
+package com.clone.notion.payload.response;
+
+import java.util.List;
+
+import com.clone.notion.model.Block;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionDiffResponse {
+    private long fromVersion;
+    private long toVersion;
+    private String fromTitle;
+    private String toTitle;
+    private boolean titleChanged;
+    private List<Block> added;
+    private List<Block> removed;
+    private List<Modification> modified;
+    private List<String> movedBlockIds; // Blocks present in both whose relative position changed
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Modification {
+        private Block before;
+        private Block after;
+    }
+}
@@ -1,5 +1,6 @@
 package com.clone.notion.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,12 @@ public interface CommentRepository extends MongoRepository<Comment, String> {
     // Find all comments for a page
     List<Comment> findByPageIdOrderByCreatedAtDesc(String pageId);
     
+    // Find every comment and reply of a page, for assembling threads in memory
+    List<Comment> findByPageId(String pageId);
+    
+    // Find replies for many comments at once
+    List<Comment> findByParentCommentIdInOrderByCreatedAtAsc(Collection<String> parentCommentIds);
+    
     // Find comments for a specific block
     List<Comment> findByPageIdAndBlockIdOrderByCreatedAtDesc(String pageId, String blockId);
     
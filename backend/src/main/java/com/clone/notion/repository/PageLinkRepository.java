@@ -1,8 +1,10 @@
 package com.clone.notion.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
@@ -19,6 +21,9 @@ public interface PageLinkRepository extends MongoRepository<PageLink, String> {
     // Find links by source page and block
     List<PageLink> findBySourcePageIdAndBlockId(String sourcePageId, String blockId);
     
+    // Find links by source page for a set of blocks
+    List<PageLink> findBySourcePageIdAndBlockIdIn(String sourcePageId, Collection<String> blockIds);
+    
     // Find specific link
     Optional<PageLink> findBySourcePageIdAndTargetPageIdAndBlockId(String sourcePageId, String targetPageId, String blockId);
     
@@ -31,4 +36,8 @@ public interface PageLinkRepository extends MongoRepository<PageLink, String> {
     // Find links by user (pages owned by user)
     @Query("{'$or': [{'sourcePageId': {'$in': ?0}}, {'targetPageId': {'$in': ?0}}]}")
     List<PageLink> findByPageIds(List<String> pageIds);
+    
+    // Prefix search on normalized link text, served by owner_link_text_idx
+    @Query("{'ownerUserId': ?0, 'linkTextLower': {$regex: ?1}}")
+    List<PageLink> findByOwnerUserIdAndLinkTextPrefix(String ownerUserId, String prefixRegex, Pageable pageable);
 } 
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.clone.notion.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 import com.clone.notion.model.Page;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +17,8 @@ public interface PageRepository extends MongoRepository<Page, String> {
     
     Optional<Page> findByConvexDocId(String convexDocId);
     
-    @Query("{'userId': ?0, '$or': [{'title': {$regex: ?1, $options: 'i'}}, {'blocks.content': {$regex: ?1, $options: 'i'}}]}")
+    // packedText holds the block contents of cold pages, whose blocks are packed
+    @Query("{'userId': ?0, '$or': [{'title': {$regex: ?1, $options: 'i'}}, {'blocks.content': {$regex: ?1, $options: 'i'}}, {'packedText': {$regex: ?1, $options: 'i'}}]}")
     List<Page> searchByUserIdAndContent(String userId, String query);
     
     boolean existsByConvexDocId(String convexDocId);
@@ -24,4 +27,19 @@ public interface PageRepository extends MongoRepository<Page, String> {
     List<Page> findCollaborativePagesByUserId(String userId);
     
     List<Page> findByUserIdAndParentIdOrderByOrderAsc(String userId, String parentId);
+    
+    List<Page> findByUserIdAndPageRankNotNullOrderByPageRankDesc(String userId, Pageable pageable);
+    
+    @Query(value = "{'_id': ?0}", fields = "{'userId': 1}")
+    Optional<Page> findOwnerById(String id);
+    
+    @Query(value = "{'_id': ?0}", fields = "{'userId': 1, 'parentId': 1}")
+    Optional<Page> findHierarchyById(String id);
+
+    @Query(value = "{'_id': {$in: ?0}}", fields = "{'userId': 1, 'parentId': 1}")
+    List<Page> findHierarchyByIdIn(Collection<String> ids);
+
+    // Ids only, of the given pages the user owns
+    @Query(value = "{'_id': {$in: ?0}, 'userId': ?1}", fields = "{'_id': 1}")
+    List<Page> findIdsByIdInAndUserId(Collection<String> ids, String userId);
 } 
\ No newline at end of file
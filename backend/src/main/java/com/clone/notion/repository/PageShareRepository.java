@@ -1,5 +1,6 @@
 package com.clone.notion.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +26,14 @@ public interface PageShareRepository extends MongoRepository<PageShare, String>
     // Find public shares
     List<PageShare> findByPageIdAndIsPublicTrueAndActiveTrue(String pageId);
     
+    // Find the user's direct and public shares on any of the given pages (a page and its ancestors)
+    @Query("{'pageId': {$in: ?0}, 'active': true, '$or': [{'sharedWithUserId': ?1}, {'isPublic': true}]}")
+    List<PageShare> findActiveSharesForPagesAndUser(Collection<String> pageIds, String userId);
+    
+    // Find the active direct shares for every (page, user) pair of the given ids
+    @Query("{'pageId': {$in: ?0}, 'sharedWithUserId': {$in: ?1}, 'active': true}")
+    List<PageShare> findActiveSharesForPagesAndUsers(Collection<String> pageIds, Collection<String> userIds);
+    
     // Find by share link
     Optional<PageShare> findByShareLinkAndActiveTrue(String shareLink);
     
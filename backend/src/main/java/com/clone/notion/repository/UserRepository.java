@@ -4,6 +4,8 @@ import com.clone.notion.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
@@ -14,4 +16,12 @@ public interface UserRepository extends MongoRepository<User, String> {
     
     @Query("{'$or': [{'username': ?0}, {'email': ?0}]}")
     Optional<User> findByUsernameOrEmail(String usernameOrEmail);
+    
+    // Ids only, for validating many users in one query
+    @Query(value = "{'_id': {'$in': ?0}}", fields = "{'_id': 1}")
+    List<User> findIdsByIdIn(Collection<String> ids);
+    
+    // Ids and usernames only, for resolving many @mentions in one query
+    @Query(value = "{'username': {'$in': ?0}}", fields = "{'_id': 1, 'username': 1}")
+    List<User> findIdsByUsernameIn(Collection<String> usernames);
 } 
\ No newline at end of file
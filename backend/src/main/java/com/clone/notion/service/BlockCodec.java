@@ -0,0 +1,235 @@
+package com.clone.notion.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.clone.notion.model.Block;
+
+/**
+ * Compact binary encoding of block lists, used for version snapshots and cold pages.
+ *
+ * Layout: a format byte, a compression byte, then the body:
+ *   block count, the type names used (each block refers to its type by index),
+ *   then one column each for type indexes, presence flags, ids and contents.
+ * Grouping ids and contents into their own columns gives deflate long runs of
+ * similar data. The body is deflated unless that would make it larger, as it
+ * can for very small pages.
+ */
+public final class BlockCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_CONTENT = 1 << 1;
+    private static final int HAS_CHECKED = 1 << 2;
+    private static final int CHECKED = 1 << 3;
+
+    // Nothing larger fits in a Mongo document; bounds allocation for corrupt input
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+    // The body is read and written a byte at a time; deflate works on whole buffers
+    private static final int BUFFER_SIZE = 8192;
+
+    private BlockCodec() {
+    }
+
+    public static byte[] encode(List<Block> blocks) {
+        return encode(blocks, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level a java.util.zip.Deflater level; NO_COMPRESSION stores the body as is
+     */
+    public static byte[] encode(List<Block> blocks, int level) {
+        byte[] body = writeBody(blocks);
+        if (level != Deflater.NO_COMPRESSION) {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(body.length / 2 + 16);
+            deflated.write(FORMAT_VERSION);
+            deflated.write(DEFLATED);
+            Deflater deflater = new Deflater(level);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, deflater, BUFFER_SIZE)) {
+                out.write(body);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to compress blocks", e);
+            } finally {
+                deflater.end();
+            }
+            if (deflated.size() < body.length + 2) {
+                return deflated.toByteArray();
+            }
+        }
+        byte[] stored = new byte[body.length + 2];
+        stored[0] = FORMAT_VERSION;
+        stored[1] = STORED;
+        System.arraycopy(body, 0, stored, 2, body.length);
+        return stored;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data was not produced by encode
+     */
+    public static List<Block> decode(byte[] data) {
+        if (data == null || data.length < 2 || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown block encoding");
+        }
+        InputStream body = new ByteArrayInputStream(data, 2, data.length - 2);
+        Inflater inflater = null;
+        if (data[1] == DEFLATED) {
+            inflater = new Inflater();
+            body = new BufferedInputStream(new InflaterInputStream(body, inflater, BUFFER_SIZE), BUFFER_SIZE);
+        } else if (data[1] != STORED) {
+            throw new IllegalArgumentException("Unknown block compression " + data[1]);
+        }
+        try (DataInputStream in = new DataInputStream(body)) {
+            return readBody(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt block encoding", e);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] writeBody(List<Block> blocks) {
+        Map<String, Integer> typeIndexes = new LinkedHashMap<>();
+        for (Block block : blocks) {
+            typeIndexes.putIfAbsent(block.getType().getValue(), typeIndexes.size());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + blocks.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeVarInt(out, blocks.size());
+            writeVarInt(out, typeIndexes.size());
+            for (String type : typeIndexes.keySet()) {
+                writeString(out, type);
+            }
+            for (Block block : blocks) {
+                writeVarInt(out, typeIndexes.get(block.getType().getValue()));
+            }
+            for (Block block : blocks) {
+                int flags = 0;
+                if (block.getId() != null) {
+                    flags |= HAS_ID;
+                }
+                if (block.getContent() != null) {
+                    flags |= HAS_CONTENT;
+                }
+                if (block.getChecked() != null) {
+                    flags |= HAS_CHECKED;
+                    if (block.getChecked()) {
+                        flags |= CHECKED;
+                    }
+                }
+                out.writeByte(flags);
+            }
+            for (Block block : blocks) {
+                if (block.getId() != null) {
+                    writeString(out, block.getId());
+                }
+            }
+            for (Block block : blocks) {
+                if (block.getContent() != null) {
+                    writeString(out, block.getContent());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode blocks", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Block> readBody(DataInputStream in) throws IOException {
+        int count = readVarInt(in);
+        int typeCount = readVarInt(in);
+        String[] types = new String[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            types[i] = readString(in);
+        }
+
+        List<Block> blocks = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            int typeIndex = readVarInt(in);
+            if (typeIndex >= typeCount) {
+                throw new IOException("Type index out of range");
+            }
+            Block block = new Block();
+            // Unknown names fall back to PARAGRAPH, like any other stored block
+            block.setType(types[typeIndex]);
+            blocks.add(block);
+        }
+        int[] flags = new int[blocks.size()];
+        for (int i = 0; i < count; i++) {
+            flags[i] = in.readUnsignedByte();
+            if ((flags[i] & HAS_CHECKED) != 0) {
+                blocks.get(i).setChecked((flags[i] & CHECKED) != 0);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & HAS_ID) != 0) {
+                blocks.get(i).setId(readString(in));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if ((flags[i] & HAS_CONTENT) != 0) {
+                blocks.get(i).setContent(readString(in));
+            }
+        }
+        return blocks;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("String too long");
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Negative length");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,133 @@
+package com.clone.notion.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.clone.notion.model.Block;
+
+/**
+ * Block-level difference between two block lists, matched by block id.
+ */
+final class BlockDiff {
+
+    final List<Block> added = new ArrayList<>();
+    final List<Block> removed = new ArrayList<>();
+    final List<Block[]> modified = new ArrayList<>(); // {before, after}
+    final List<String> moved = new ArrayList<>();
+    // Order of the new list is (old order without removed blocks) + added blocks
+    boolean orderImplied;
+
+    private BlockDiff() {
+    }
+
+    /**
+     * Returns null when either list has blocks without ids or duplicate ids.
+     */
+    static BlockDiff compute(List<Block> before, List<Block> after) {
+        Map<String, Block> beforeById = indexById(before);
+        Map<String, Block> afterById = indexById(after);
+        if (beforeById == null || afterById == null) {
+            return null;
+        }
+
+        BlockDiff diff = new BlockDiff();
+        for (Block block : before) {
+            if (!afterById.containsKey(block.getId())) {
+                diff.removed.add(block);
+            }
+        }
+        // Positions in the old list of the blocks kept, in their new order
+        List<Block> kept = new ArrayList<>();
+        Map<String, Integer> oldPosition = new HashMap<>();
+        for (int i = 0; i < before.size(); i++) {
+            oldPosition.put(before.get(i).getId(), i);
+        }
+        for (Block block : after) {
+            Block previous = beforeById.get(block.getId());
+            if (previous == null) {
+                diff.added.add(block);
+            } else {
+                kept.add(block);
+                if (!sameContent(previous, block)) {
+                    diff.modified.add(new Block[] {previous, block});
+                }
+            }
+        }
+
+        int[] positions = kept.stream().mapToInt(block -> oldPosition.get(block.getId())).toArray();
+        Set<Integer> inPlace = longestIncreasingRun(positions);
+        for (int i = 0; i < kept.size(); i++) {
+            if (!inPlace.contains(i)) {
+                diff.moved.add(kept.get(i).getId());
+            }
+        }
+
+        List<String> implied = new ArrayList<>();
+        for (Block block : before) {
+            if (afterById.containsKey(block.getId())) {
+                implied.add(block.getId());
+            }
+        }
+        diff.added.forEach(block -> implied.add(block.getId()));
+        diff.orderImplied = implied.equals(after.stream().map(Block::getId).toList());
+        return diff;
+    }
+
+    static boolean sameContent(Block a, Block b) {
+        return a.getType() == b.getType()
+            && Objects.equals(a.getContent(), b.getContent())
+            && Objects.equals(a.getChecked(), b.getChecked());
+    }
+
+    private static Map<String, Block> indexById(List<Block> blocks) {
+        Map<String, Block> byId = new LinkedHashMap<>();
+        for (Block block : blocks) {
+            if (block.getId() == null || byId.put(block.getId(), block) != null) {
+                return null;
+            }
+        }
+        return byId;
+    }
+
+    /**
+     * Indexes of one longest strictly increasing subsequence; the blocks at the
+     * other indexes are the ones that moved.
+     */
+    private static Set<Integer> longestIncreasingRun(int[] values) {
+        int[] tails = new int[values.length];
+        int[] previous = new int[values.length];
+        Arrays.fill(previous, -1);
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low > 0) {
+                previous[i] = tails[low - 1];
+            }
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        Set<Integer> result = new HashSet<>();
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            result.add(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package com.clone.notion.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockOperation;
+
+/**
+ * Applies block operations to a page's block list, rebasing each one onto the
+ * current state.
+ *
+ * Operations address blocks by id, so most concurrent edits commute without
+ * transformation. The remaining conflicts are resolved as follows:
+ *   - an insert or move anchored after a block that was deleted concurrently is
+ *     re-anchored to that block's predecessor at deletion time (recorded on the
+ *     DELETE operation), following the chain if that one is gone too
+ *   - updates, moves and deletes of a block that no longer exists are dropped
+ *   - block fields and the title are last-writer-wins registers in server order
+ *   - concurrent inserts after the same anchor both land there, the later one first
+ *
+ * Not thread-safe; one instance per batch.
+ */
+final class BlockMerge {
+
+    private static final int MAX_ANCHOR_HOPS = 32;
+
+    private final List<Block> blocks;
+    private String title;
+    // Lookup of the DELETE operation that removed a block, from the operation log
+    private final Function<String, BlockOperation> deletedBlocks;
+    // Deletes applied earlier in this batch
+    private final Map<String, BlockOperation> deletedHere = new HashMap<>();
+
+    BlockMerge(List<Block> blocks, String title, Function<String, BlockOperation> deletedBlocks) {
+        this.blocks = new ArrayList<>(blocks.size());
+        // Copies, so the caller's list still holds the previous state
+        blocks.forEach(block -> this.blocks.add(copy(block)));
+        this.title = title;
+        this.deletedBlocks = deletedBlocks;
+    }
+
+    List<Block> getBlocks() {
+        return blocks;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Apply one operation. Returns it as applied (with resolved anchors and ids),
+     * or null if it no longer applies.
+     */
+    BlockOperation apply(BlockOperation op) {
+        if (op.getType() == null) {
+            return null;
+        }
+        switch (op.getType()) {
+            case INSERT_BLOCK:
+                return insert(op);
+            case UPDATE_BLOCK:
+                return update(op);
+            case DELETE_BLOCK:
+                return delete(op);
+            case MOVE_BLOCK:
+                return move(op);
+            case SET_TITLE:
+                title = op.getTitle();
+                return op;
+            default:
+                // REPLACE_DOCUMENT is server-only
+                return null;
+        }
+    }
+
+    private BlockOperation insert(BlockOperation op) {
+        if (op.getBlock() == null) {
+            return null;
+        }
+        Block block = copy(op.getBlock());
+        String blockId = op.getBlockId() != null ? op.getBlockId() : block.getId();
+        if (blockId == null) {
+            blockId = UUID.randomUUID().toString();
+        }
+        if (indexOf(blockId) >= 0) {
+            return null;
+        }
+        block.setId(blockId);
+
+        int position = resolveAnchor(op.getAfterBlockId()) + 1;
+        blocks.add(position, block);
+        return op.toBuilder()
+            .blockId(blockId)
+            .block(copy(block))
+            .afterBlockId(position > 0 ? blocks.get(position - 1).getId() : null)
+            .build();
+    }
+
+    private BlockOperation update(BlockOperation op) {
+        int index = indexOf(op.getBlockId());
+        if (index < 0) {
+            return null;
+        }
+        Block block = blocks.get(index);
+        if (op.getContent() != null) {
+            block.setContent(op.getContent());
+        }
+        if (op.getBlockType() != null) {
+            block.setType(op.getBlockType());
+        }
+        if (op.getChecked() != null) {
+            block.setChecked(op.getChecked());
+        }
+        return op;
+    }
+
+    private BlockOperation delete(BlockOperation op) {
+        int index = indexOf(op.getBlockId());
+        if (index < 0) {
+            return null;
+        }
+        blocks.remove(index);
+        // The predecessor is kept so inserts anchored on this block can be re-anchored
+        BlockOperation applied = op.toBuilder()
+            .afterBlockId(index > 0 ? blocks.get(index - 1).getId() : null)
+            .build();
+        deletedHere.put(op.getBlockId(), applied);
+        return applied;
+    }
+
+    private BlockOperation move(BlockOperation op) {
+        int index = indexOf(op.getBlockId());
+        if (index < 0 || op.getBlockId().equals(op.getAfterBlockId())) {
+            return null;
+        }
+        Block block = blocks.remove(index);
+        int position = resolveAnchor(op.getAfterBlockId()) + 1;
+        blocks.add(position, block);
+        return op.toBuilder()
+            .afterBlockId(position > 0 ? blocks.get(position - 1).getId() : null)
+            .build();
+    }
+
+    /**
+     * Index of the block to insert after, -1 for the top. An anchor that was never
+     * seen falls back to the end of the page.
+     */
+    private int resolveAnchor(String afterBlockId) {
+        String anchor = afterBlockId;
+        for (int hop = 0; hop < MAX_ANCHOR_HOPS; hop++) {
+            if (anchor == null) {
+                return -1;
+            }
+            int index = indexOf(anchor);
+            if (index >= 0) {
+                return index;
+            }
+            BlockOperation deletion = deletedHere.get(anchor);
+            if (deletion == null) {
+                deletion = deletedBlocks.apply(anchor);
+            }
+            if (deletion == null) {
+                break;
+            }
+            anchor = deletion.getAfterBlockId();
+        }
+        return blocks.size() - 1;
+    }
+
+    private int indexOf(String blockId) {
+        if (blockId == null) {
+            return -1;
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            if (blockId.equals(blocks.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Block copy(Block block) {
+        return Block.builder()
+            .id(block.getId())
+            .type(block.getType())
+            .content(block.getContent())
+            .checked(block.getChecked())
+            .build();
+    }
+}
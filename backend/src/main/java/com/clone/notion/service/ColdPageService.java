@@ -0,0 +1,177 @@
+package com.clone.notion.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.Page;
+import com.clone.notion.model.PageViewStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Packs the blocks of pages nobody has edited or opened for a while with
+ * BlockCodec. Packed pages are unpacked on read by PackedBlocksCallback and
+ * stored unpacked again on their next full save. Their block contents are also
+ * kept as plain text in packedText, which content search matches instead of
+ * blocks. Off by default (pages.cold-storage.enabled).
+ *
+ * Each run packs at most max-pages-per-run pages, in bulk batches with a pause
+ * between them. A page is only packed if it has not changed since it was read.
+ */
+@Service
+@RequiredArgsConstructor
+public class ColdPageService {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${pages.cold-storage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${pages.cold-storage.idle-days:30}")
+    private int idleDays;
+
+    @Value("${pages.cold-storage.max-pages-per-run:5000}")
+    private int maxPagesPerRun;
+
+    @Value("${pages.cold-storage.throttle-ms:50}")
+    private long throttleMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong pagesPacked = new AtomicLong();
+    private final AtomicLong jsonBytes = new AtomicLong();
+    private final AtomicLong packedBytes = new AtomicLong();
+    private volatile Instant lastRunAt;
+
+    @Scheduled(initialDelayString = "${pages.cold-storage.initial-delay-ms:600000}",
+               fixedDelayString = "${pages.cold-storage.interval-ms:3600000}")
+    public void scheduledPack() {
+        if (enabled) {
+            packColdPages();
+        }
+    }
+
+    /**
+     * Returns the number of pages packed, or 0 if a run is already in progress.
+     */
+    public int packColdPages() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int packed = 0;
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofDays(idleDays));
+            Query query = new Query(Criteria.where("updatedAt").lt(cutoff)
+                    .and("packedBlocks").exists(false)
+                    .and("blocks.0").exists(true))
+                .limit(maxPagesPerRun);
+            query.fields().include("_id").include("updatedAt").include("blocks");
+            List<Page> candidates = mongoTemplate.find(query, Page.class);
+
+            for (int start = 0; start < candidates.size(); start += BATCH_SIZE) {
+                List<Page> batch = candidates.subList(start, Math.min(start + BATCH_SIZE, candidates.size()));
+                packed += packBatch(batch, recentlyViewed(batch, cutoff));
+                if (start + BATCH_SIZE < candidates.size() && throttleMs > 0) {
+                    Thread.sleep(throttleMs);
+                }
+            }
+            System.out.println("[DEBUG] Cold storage packed " + packed + " of " + candidates.size() + " idle pages");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.out.println("[ERROR] Cold storage run failed: " + e.getMessage());
+        } finally {
+            lastRunAt = Instant.now();
+            running.set(false);
+        }
+        return packed;
+    }
+
+    public Map<String, Object> getStats() {
+        long json = jsonBytes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("packedPages", mongoTemplate.count(new Query(Criteria.where("packedBlocks").exists(true)), Page.class));
+        stats.put("pagesPacked", pagesPacked.get());
+        stats.put("jsonBytes", json);
+        stats.put("packedBytes", packedBytes.get());
+        stats.put("compressionRatio", packedBytes.get() == 0 ? 0.0 : (double) json / packedBytes.get());
+        return stats;
+    }
+
+    private int packBatch(List<Page> batch, Set<String> skip) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Page.class);
+        long batchJson = 0;
+        long batchPacked = 0;
+        int queued = 0;
+        for (Page page : batch) {
+            if (skip.contains(page.getId())) {
+                continue;
+            }
+            byte[] packed = BlockCodec.encode(page.getBlocks(), Deflater.BEST_COMPRESSION);
+            // Only if nobody saved the page since it was read
+            bulk.updateOne(
+                new Query(Criteria.where("_id").is(page.getId()).and("updatedAt").is(page.getUpdatedAt())),
+                new Update().set("packedBlocks", packed).set("packedText", searchableText(page.getBlocks())).unset("blocks"));
+            batchJson += jsonSize(page.getBlocks());
+            batchPacked += packed.length;
+            queued++;
+        }
+        if (queued == 0) {
+            return 0;
+        }
+        int modified = bulk.execute().getModifiedCount();
+        pagesPacked.addAndGet(modified);
+        jsonBytes.addAndGet(batchJson);
+        packedBytes.addAndGet(batchPacked);
+        return modified;
+    }
+
+    private Set<String> recentlyViewed(List<Page> pages, Instant cutoff) {
+        Query query = new Query(Criteria.where("_id").in(pages.stream().map(Page::getId).toList())
+            .and("lastViewedAt").gte(cutoff));
+        query.fields().include("_id");
+        Set<String> viewed = new HashSet<>();
+        mongoTemplate.find(query, PageViewStats.class).forEach(stats -> viewed.add(stats.getPageId()));
+        return viewed;
+    }
+
+    private static String searchableText(List<Block> blocks) {
+        return blocks.stream()
+            .map(Block::getContent)
+            .filter(content -> content != null && !content.isEmpty())
+            .collect(Collectors.joining("\n"));
+    }
+
+    private long jsonSize(List<Block> blocks) {
+        try {
+            return objectMapper.writeValueAsBytes(blocks).length;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.clone.notion.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Token buckets for the collaborative endpoints, one per user and one per page
+ * for each action. A call needs a token from both buckets, so a single client
+ * cannot flood a page, and a busy page cannot use up the capacity for others.
+ *
+ * Limits are read from collaborative.rate-limit.{action}.user-per-second,
+ * user-burst, page-per-second and page-burst. Buckets that have refilled
+ * completely carry no state and are dropped by a periodic sweep.
+ */
+@Service
+public class CollaborativeRateLimiter {
+
+    public enum Action {
+        SYNC_CONTENT("sync-content", 5, 10, 20, 40),
+        MERGE("merge", 1, 5, 2, 10),
+        OPERATIONS("operations", 20, 50, 60, 120),
+        PRESENCE("presence", 30, 60, 200, 400);
+
+        private final String key;
+        private final double userPerSecond;
+        private final int userBurst;
+        private final double pagePerSecond;
+        private final int pageBurst;
+
+        Action(String key, double userPerSecond, int userBurst, double pagePerSecond, int pageBurst) {
+            this.key = key;
+            this.userPerSecond = userPerSecond;
+            this.userBurst = userBurst;
+            this.pagePerSecond = pagePerSecond;
+            this.pageBurst = pageBurst;
+        }
+    }
+
+    private record Limit(double perSecond, int burst) {
+    }
+
+    private static final class TokenBucket {
+        private final double tokensPerMilli;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(Limit limit, long now) {
+            this.tokensPerMilli = limit.perSecond() / 1000.0;
+            this.capacity = limit.burst();
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized void giveBack() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMilli);
+                refilledAt = now;
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<Action, Limit> userLimits = new EnumMap<>(Action.class);
+    private final Map<Action, Limit> pageLimits = new EnumMap<>(Action.class);
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<Action, AtomicLong> allowed = new EnumMap<>(Action.class);
+    private final Map<Action, AtomicLong> rejectedByUser = new EnumMap<>(Action.class);
+    private final Map<Action, AtomicLong> rejectedByPage = new EnumMap<>(Action.class);
+
+    public CollaborativeRateLimiter(Environment environment) {
+        this.enabled = environment.getProperty("collaborative.rate-limit.enabled", Boolean.class, true);
+        for (Action action : Action.values()) {
+            String prefix = "collaborative.rate-limit." + action.key + ".";
+            userLimits.put(action, new Limit(
+                environment.getProperty(prefix + "user-per-second", Double.class, action.userPerSecond),
+                environment.getProperty(prefix + "user-burst", Integer.class, action.userBurst)));
+            pageLimits.put(action, new Limit(
+                environment.getProperty(prefix + "page-per-second", Double.class, action.pagePerSecond),
+                environment.getProperty(prefix + "page-burst", Integer.class, action.pageBurst)));
+            allowed.put(action, new AtomicLong());
+            rejectedByUser.put(action, new AtomicLong());
+            rejectedByPage.put(action, new AtomicLong());
+        }
+    }
+
+    /**
+     * Take a token for the call from the user's and the page's bucket. Returns false if either is empty.
+     */
+    public boolean tryAcquire(Action action, String userId, String pageId) {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        TokenBucket user = bucket(action.key + ":u:" + userId, userLimits.get(action), now);
+        if (!user.tryTake(now)) {
+            rejectedByUser.get(action).incrementAndGet();
+            return false;
+        }
+        TokenBucket page = bucket(action.key + ":p:" + pageId, pageLimits.get(action), now);
+        if (!page.tryTake(now)) {
+            // The call is not made, so it should not count against the user
+            user.giveBack();
+            rejectedByPage.get(action).incrementAndGet();
+            return false;
+        }
+        allowed.get(action).incrementAndGet();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${collaborative.rate-limit.sweep-interval-ms:60000}")
+    public void evictFullBuckets() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("buckets", buckets.size());
+        for (Action action : Action.values()) {
+            stats.put(action.key, Map.of(
+                "allowed", allowed.get(action).get(),
+                "rejectedByUser", rejectedByUser.get(action).get(),
+                "rejectedByPage", rejectedByPage.get(action).get()
+            ));
+        }
+        return stats;
+    }
+
+    private TokenBucket bucket(String key, Limit limit, long now) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(limit, now));
+    }
+}
@@ -0,0 +1,220 @@
+package com.clone.notion.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-page registry of server-sent event subscribers for live comment updates.
+ *
+ * An idle subscriber is just an SseEmitter in a concurrent set: no thread is
+ * held while the connection is open. Events are serialized once and the same
+ * frame is queued for every subscriber of the page. Each subscriber's queue is
+ * drained independently on its own executor (AsyncConfig), so a slow client
+ * only delays itself; a write to a client that stopped reading fails after the
+ * connector's write timeout and drops the subscriber. A queue holds at most
+ * comments.events.max-queued frames; past that, new events are dropped and the
+ * client gets a single comments-resync event once it catches up (clients
+ * reload the comments on any event anyway). A periodic heartbeat keeps proxies
+ * from closing idle streams and weeds out clients that went away without
+ * closing.
+ */
+@Component
+@RequiredArgsConstructor
+public class CommentEventHub {
+
+    public static final String COMMENT_CREATED = "comment-created";
+    public static final String COMMENT_RESOLVED = "comment-resolved";
+    public static final String COMMENT_DELETED = "comment-deleted";
+    public static final String COMMENTS_CLEARED = "comments-cleared";
+    public static final String COMMENTS_RESYNC = "comments-resync";
+
+    private static final class Subscriber {
+        final String pageId;
+        final SseEmitter emitter;
+        final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean overflowed = new AtomicBoolean();
+
+        Subscriber(String pageId, SseEmitter emitter) {
+            this.pageId = pageId;
+            this.emitter = emitter;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    // Resolved by name, one of several executors
+    private final ThreadPoolTaskExecutor commentEventExecutor;
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventsDropped = new AtomicLong();
+
+    @Value("${comments.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${comments.events.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${comments.events.max-queued:32}")
+    private int maxQueued;
+
+    /**
+     * Open a stream of comment events for the page. Returns null when the
+     * subscriber limit is reached.
+     */
+    public SseEmitter subscribe(String pageId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(pageId, emitter);
+        // compute / computeIfPresent keep adds and the removal of emptied sets atomic per page
+        subscribers.compute(pageId, (id, pageSubscribers) -> {
+            Set<Subscriber> set = pageSubscribers != null ? pageSubscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        // Tells the client the stream is live; it can reload once and then rely on events
+        enqueue(subscriber, SseEmitter.event().name("ready").data(pageId).build());
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.pageId, (id, pageSubscribers) -> {
+            if (pageSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return pageSubscribers.isEmpty() ? null : pageSubscribers;
+        });
+    }
+
+    /**
+     * Queue an event for every subscriber of the page. Never blocks on a client,
+     * so slow clients cannot delay the comment write that triggered it.
+     */
+    public void publish(String pageId, String eventName, Object payload) {
+        Set<Subscriber> pageSubscribers = subscribers.get(pageId);
+        if (pageSubscribers == null || pageSubscribers.isEmpty()) {
+            return;
+        }
+        try {
+            // Serialized once, the same frame goes to every subscriber
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event()
+                .name(eventName)
+                .data(objectMapper.writeValueAsString(payload), MediaType.APPLICATION_JSON)
+                .build();
+            pageSubscribers.forEach(subscriber -> enqueue(subscriber, frame));
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to publish comment event " + eventName + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${comments.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SseEmitter.event().comment("ping").build();
+        for (Set<Subscriber> pageSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : pageSubscribers) {
+                if (subscriber.queued.get() == 0) {
+                    enqueue(subscriber, frame);
+                } else {
+                    // Anything already queued keeps the stream alive too
+                    startDrain(subscriber);
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "subscribers", subscriberCount.get(),
+            "eventsDropped", eventsDropped.get()
+        );
+    }
+
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (subscriber.queued.incrementAndGet() > maxQueued) {
+            subscriber.queued.decrementAndGet();
+            subscriber.overflowed.set(true);
+            eventsDropped.incrementAndGet();
+        } else {
+            subscriber.queue.add(frame);
+        }
+        startDrain(subscriber);
+    }
+
+    private void startDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                commentEventExecutor.execute(() -> drain(subscriber));
+            } catch (Exception e) {
+                // Executor saturated; the next event or heartbeat retries
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write the subscriber's queued frames in order. Only one drain runs per subscriber at a time.
+     */
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = subscriber.queue.poll();
+            if (frame != null) {
+                subscriber.queued.decrementAndGet();
+            } else if (subscriber.overflowed.getAndSet(false)) {
+                frame = SseEmitter.event().name(COMMENTS_RESYNC).data(subscriber.pageId).build();
+            } else {
+                subscriber.draining.set(false);
+                // Something may have been queued after the poll but before the flag was cleared
+                if ((subscriber.queue.isEmpty() && !subscriber.overflowed.get())
+                        || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                subscriber.emitter.send(frame);
+            } catch (Exception e) {
+                // Client went away
+                unsubscribe(subscriber);
+                subscriber.queue.clear();
+                subscriber.emitter.completeWithError(e);
+                subscriber.draining.set(false);
+                return;
+            }
+        }
+    }
+}
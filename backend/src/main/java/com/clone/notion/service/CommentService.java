@@ -1,17 +1,35 @@
 package com.clone.notion.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.clone.notion.model.Comment;
+import com.clone.notion.model.MentionInboxEntry;
+import com.clone.notion.payload.response.CommentCountResponse;
+import com.clone.notion.payload.response.CommentThreadPage;
 import com.clone.notion.repository.CommentRepository;
-import com.clone.notion.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,22 +38,120 @@ import lombok.RequiredArgsConstructor;
 public class CommentService {
 
     private final CommentRepository commentRepository;
-    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final UsernameCache usernameCache;
+    private final MentionInboxService mentionInboxService;
+    private final CommentEventHub commentEventHub;
     
     // Regex pattern to find @mentions
     private static final Pattern MENTION_PATTERN = Pattern.compile("@([a-zA-Z0-9_]+)");
 
+    private static final int MAX_THREAD_PAGE_SIZE = 100;
+    private static final int MAX_COUNT_PAGE_IDS = 500;
+
+    // Threads newest first, replies oldest first; ids break createdAt ties so cursors are stable
+    private static final Comparator<Comment> THREAD_ORDER = Comparator
+        .comparing(Comment::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Comment::getId, Comparator.reverseOrder());
+    private static final Comparator<Comment> REPLY_ORDER = Comparator
+        .comparing(Comment::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Comment::getId);
+
+    /**
+     * All threads of a page. Comments and replies are loaded with one query and
+     * assembled in memory.
+     */
     public List<Comment> getCommentsForPage(String pageId) {
-        List<Comment> topLevelComments = commentRepository.findByPageIdAndParentCommentIdIsNullOrderByCreatedAtDesc(pageId);
+        List<Comment> comments = commentRepository.findByPageId(pageId);
         
-        // Load replies for each comment
-        for (Comment comment : topLevelComments) {
-            comment.setReplies(commentRepository.findByParentCommentIdOrderByCreatedAtAsc(comment.getId()));
+        List<Comment> topLevelComments = new ArrayList<>();
+        Map<String, List<Comment>> repliesByParent = new HashMap<>();
+        for (Comment comment : comments) {
+            if (comment.getParentCommentId() == null) {
+                topLevelComments.add(comment);
+            } else {
+                repliesByParent.computeIfAbsent(comment.getParentCommentId(), id -> new ArrayList<>()).add(comment);
+            }
         }
         
+        topLevelComments.sort(THREAD_ORDER);
+        attachReplies(topLevelComments, repliesByParent);
         return topLevelComments;
     }
 
+    /**
+     * One page of threads, newest first. The cursor is the opaque nextCursor of
+     * the previous page, or null for the first page. Costs two queries per page
+     * however busy the page is: the threads, then all of their replies.
+     */
+    public CommentThreadPage getCommentThreads(String pageId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_THREAD_PAGE_SIZE));
+        
+        Criteria criteria = Criteria.where("pageId").is(pageId).and("parentCommentId").is(null);
+        if (cursor != null && !cursor.isEmpty()) {
+            ThreadCursor after = decodeCursor(cursor);
+            criteria = criteria.orOperator(
+                Criteria.where("createdAt").lt(after.createdAt()),
+                Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(after.id()));
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+            .limit(pageSize + 1);
+        List<Comment> threads = mongoTemplate.find(query, Comment.class);
+        
+        boolean hasMore = threads.size() > pageSize;
+        if (hasMore) {
+            threads = new ArrayList<>(threads.subList(0, pageSize));
+        }
+        
+        Map<String, List<Comment>> repliesByParent = new HashMap<>();
+        if (!threads.isEmpty()) {
+            List<String> threadIds = threads.stream().map(Comment::getId).toList();
+            for (Comment reply : commentRepository.findByParentCommentIdInOrderByCreatedAtAsc(threadIds)) {
+                repliesByParent.computeIfAbsent(reply.getParentCommentId(), id -> new ArrayList<>()).add(reply);
+            }
+        }
+        attachReplies(threads, repliesByParent);
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Comment last = threads.get(threads.size() - 1);
+            nextCursor = encodeCursor(last);
+        }
+        return CommentThreadPage.builder()
+            .threads(threads)
+            .nextCursor(nextCursor)
+            .hasMore(hasMore)
+            .build();
+    }
+
+    private void attachReplies(List<Comment> threads, Map<String, List<Comment>> repliesByParent) {
+        for (Comment thread : threads) {
+            List<Comment> replies = repliesByParent.getOrDefault(thread.getId(), new ArrayList<>());
+            replies.sort(REPLY_ORDER);
+            thread.setReplies(replies);
+        }
+    }
+
+    private record ThreadCursor(Instant createdAt, String id) {
+    }
+
+    private static String encodeCursor(Comment comment) {
+        String raw = comment.getCreatedAt().toEpochMilli() + ":" + comment.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ThreadCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ThreadCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))),
+                raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     public List<Comment> getCommentsForBlock(String pageId, String blockId) {
         return commentRepository.findByPageIdAndBlockIdOrderByCreatedAtDesc(pageId, blockId);
     }
@@ -56,7 +172,10 @@ public class CommentService {
             .replies(new ArrayList<>())
             .build();
         
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        mentionInboxService.fanOut(saved);
+        commentEventHub.publish(pageId, CommentEventHub.COMMENT_CREATED, saved);
+        return saved;
     }
 
     public Comment createReply(String parentCommentId, String userId, String username, String content) {
@@ -78,7 +197,10 @@ public class CommentService {
             .updatedAt(Instant.now())
             .build();
         
-        return commentRepository.save(reply);
+        Comment saved = commentRepository.save(reply);
+        mentionInboxService.fanOut(saved);
+        commentEventHub.publish(saved.getPageId(), CommentEventHub.COMMENT_CREATED, saved);
+        return saved;
     }
 
     public Comment resolveComment(String commentId, String userId) {
@@ -88,7 +210,9 @@ public class CommentService {
         comment.setResolved(true);
         comment.setUpdatedAt(Instant.now());
         
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        commentEventHub.publish(saved.getPageId(), CommentEventHub.COMMENT_RESOLVED, saved);
+        return saved;
     }
 
     public void deleteComment(String commentId, String userId) {
@@ -100,46 +224,133 @@ public class CommentService {
             throw new IllegalArgumentException("User not authorized to delete this comment");
         }
         
+        // Drop inbox entries for the comment and its replies
+        List<String> removedIds = new ArrayList<>();
+        removedIds.add(commentId);
+        commentRepository.findByParentCommentIdOrderByCreatedAtAsc(commentId)
+            .forEach(reply -> removedIds.add(reply.getId()));
+        mentionInboxService.removeForComments(removedIds);
+        
         // Delete all replies first
         commentRepository.deleteByParentCommentId(commentId);
         
         // Delete the comment
         commentRepository.delete(comment);
+        
+        Map<String, Object> event = new HashMap<>();
+        event.put("id", commentId);
+        event.put("pageId", comment.getPageId());
+        event.put("parentCommentId", comment.getParentCommentId());
+        commentEventHub.publish(comment.getPageId(), CommentEventHub.COMMENT_DELETED, event);
     }
 
     public List<Comment> getMentionsForUser(String userId) {
         return commentRepository.findByMentionsContaining(userId);
     }
 
+    public List<MentionInboxEntry> getMentionInbox(String userId, String before, int limit, boolean unreadOnly) {
+        return mentionInboxService.getInbox(userId, before, limit, unreadOnly);
+    }
+
+    public long getUnreadMentionCount(String userId) {
+        return mentionInboxService.getUnreadCount(userId);
+    }
+
+    public long markMentionsRead(String userId, List<String> entryIds) {
+        return mentionInboxService.markRead(userId, entryIds);
+    }
+
+    public long markAllMentionsRead(String userId) {
+        return mentionInboxService.markAllRead(userId);
+    }
+
     public List<Comment> getUnresolvedComments(String pageId) {
         return commentRepository.findByPageIdAndResolvedFalseOrderByCreatedAtDesc(pageId);
     }
 
+    public SseEmitter subscribeToPage(String pageId) {
+        return commentEventHub.subscribe(pageId);
+    }
+
+    public Map<String, Object> getEventStats() {
+        return commentEventHub.getStats();
+    }
+
     public long getCommentCount(String pageId) {
         return commentRepository.countByPageId(pageId);
     }
 
+    /**
+     * Comment and unresolved counts for many pages with one $group aggregation.
+     * Every requested page is present in the result, with zero counts if it has no comments.
+     */
+    public Map<String, CommentCountResponse> getCommentCounts(List<String> pageIds) {
+        Set<String> ids = new LinkedHashSet<>(pageIds);
+        ids.remove(null);
+        if (ids.size() > MAX_COUNT_PAGE_IDS) {
+            throw new IllegalArgumentException("Too many page ids (max " + MAX_COUNT_PAGE_IDS + ")");
+        }
+        
+        Map<String, CommentCountResponse> counts = new LinkedHashMap<>();
+        ids.forEach(id -> counts.put(id, new CommentCountResponse(0, 0)));
+        if (!ids.isEmpty()) {
+            countGroupedBy(Criteria.where("pageId").in(ids), "pageId", counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Comment and unresolved counts for every commented block of a page, in one aggregation.
+     */
+    public Map<String, CommentCountResponse> getBlockCommentCounts(String pageId) {
+        Map<String, CommentCountResponse> counts = new LinkedHashMap<>();
+        countGroupedBy(Criteria.where("pageId").is(pageId).and("blockId").ne(null), "blockId", counts);
+        return counts;
+    }
+
+    private void countGroupedBy(Criteria match, String groupField, Map<String, CommentCountResponse> counts) {
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(match),
+            Aggregation.group(groupField)
+                .count().as("total")
+                .sum(ConditionalOperators.when(Criteria.where("resolved").is(false)).then(1).otherwise(0)).as("unresolved")
+        );
+        for (Document row : mongoTemplate.aggregate(aggregation, Comment.class, Document.class)) {
+            counts.put(row.getString("_id"), new CommentCountResponse(
+                ((Number) row.get("total")).longValue(),
+                ((Number) row.get("unresolved")).longValue()));
+        }
+    }
+
     public void deleteCommentsForPage(String pageId) {
+        mentionInboxService.removeForPage(pageId);
         commentRepository.deleteByPageId(pageId);
+        commentEventHub.publish(pageId, CommentEventHub.COMMENTS_CLEARED, Map.of("pageId", pageId));
     }
 
     public void deleteCommentsForBlock(String pageId, String blockId) {
+        mentionInboxService.removeForBlock(pageId, blockId);
         commentRepository.deleteByPageIdAndBlockId(pageId, blockId);
+        commentEventHub.publish(pageId, CommentEventHub.COMMENTS_CLEARED, Map.of("pageId", pageId, "blockId", blockId));
     }
 
     /**
      * Extract @mentions from comment content
      */
     private List<String> extractMentions(String content) {
-        List<String> mentions = new ArrayList<>();
-        Matcher matcher = MENTION_PATTERN.matcher(content);
+        Set<String> usernames = findMentionedUsernames(content);
+        if (usernames.isEmpty()) {
+            return new ArrayList<>();
+        }
         
-        while (matcher.find()) {
-            String username = matcher.group(1);
-            // Find user by username and add their ID to mentions
-            userRepository.findByUsername(username).ifPresent(user -> {
-                mentions.add(user.getId());
-            });
+        // All usernames resolved at once, in mention order, each user listed once
+        Map<String, String> userIds = usernameCache.resolve(usernames);
+        List<String> mentions = new ArrayList<>();
+        for (String username : usernames) {
+            String userId = userIds.get(username);
+            if (userId != null && !mentions.contains(userId)) {
+                mentions.add(userId);
+            }
         }
         
         return mentions;
@@ -149,15 +360,23 @@ public class CommentService {
      * Validate if mentioned users exist
      */
     public boolean validateMentions(String content) {
-        Matcher matcher = MENTION_PATTERN.matcher(content);
+        Set<String> usernames = findMentionedUsernames(content);
+        if (usernames.isEmpty()) {
+            return true;
+        }
         
+        return usernameCache.resolve(usernames).keySet().containsAll(usernames);
+    }
+
+    private Set<String> findMentionedUsernames(String content) {
+        Set<String> usernames = new LinkedHashSet<>();
+        if (content == null) {
+            return usernames;
+        }
+        Matcher matcher = MENTION_PATTERN.matcher(content);
         while (matcher.find()) {
-            String username = matcher.group(1);
-            if (!userRepository.existsByUsername(username)) {
-                return false;
-            }
+            usernames.add(matcher.group(1));
         }
-        
-        return true;
+        return usernames;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.Page;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Write-behind buffer for collaborative sync-content calls.
+ *
+ * Every editor of a page posts its full content every few seconds. Only the
+ * latest submission per page is kept; a page is written once it has been idle
+ * for collaborative.sync.idle-ms, or at the latest collaborative.sync.interval
+ * after its first unwritten submission. Pending content is flushed on shutdown.
+ * Reads may lag a buffered page by up to one interval.
+ *
+ * Each submission records the page's updatedAt, and the flush is a
+ * compare-and-set on it: if anything else wrote the page in the meantime
+ * (operations, a full update, a title change or a delete), the buffered
+ * content is older than the page and is dropped rather than written back.
+ *
+ * A page whose write fails stays buffered (unless newer content arrived) and
+ * is retried on the next check. When too many pages are pending, new pages are
+ * written through instead of buffered; a failed write-through is buffered
+ * anyway, past the limit, since the client was already told it was accepted.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentSyncBuffer {
+
+    private static final class PendingContent {
+        final String title;
+        final List<Block> blocks;
+        final String userId;
+        final Instant baseUpdatedAt;
+        final long firstSubmittedAt;
+        final long lastSubmittedAt;
+
+        PendingContent(String title, List<Block> blocks, String userId, Instant baseUpdatedAt,
+                       long firstSubmittedAt, long lastSubmittedAt) {
+            this.title = title;
+            this.blocks = blocks;
+            this.userId = userId;
+            this.baseUpdatedAt = baseUpdatedAt;
+            this.firstSubmittedAt = firstSubmittedAt;
+            this.lastSubmittedAt = lastSubmittedAt;
+        }
+
+        PendingContent rebasedOn(Instant updatedAt) {
+            return new PendingContent(title, blocks, userId, updatedAt, firstSubmittedAt, lastSubmittedAt);
+        }
+    }
+
+    private final PageService pageService;
+
+    private final ConcurrentHashMap<String, PendingContent> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong submissions = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeThroughs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong totalFlushLagMs = new AtomicLong();
+    private final AtomicLong maxFlushLagMs = new AtomicLong();
+
+    @Value("${collaborative.sync.interval:5000}")
+    private long maxDelayMs;
+
+    @Value("${collaborative.sync.idle-ms:1000}")
+    private long idleMs;
+
+    @Value("${collaborative.sync.max-pending-pages:10000}")
+    private int maxPendingPages;
+
+    /**
+     * Buffer the page's latest content. The caller has already checked edit access.
+     */
+    public void submit(String pageId, String userId, String title, List<Block> blocks) {
+        submissions.incrementAndGet();
+        long now = System.currentTimeMillis();
+        Instant baseUpdatedAt = pageService.findUpdatedAt(pageId);
+
+        if (pending.size() >= maxPendingPages && !pending.containsKey(pageId)) {
+            writeThroughs.incrementAndGet();
+            PendingContent content = new PendingContent(title, blocks, userId, baseUpdatedAt, now, now);
+            if (!write(pageId, content)) {
+                pending.putIfAbsent(pageId, content);
+            }
+            return;
+        }
+        pending.compute(pageId, (id, previous) -> previous == null
+            ? new PendingContent(title, blocks, userId, baseUpdatedAt, now, now)
+            : new PendingContent(title, blocks, userId, baseUpdatedAt, previous.firstSubmittedAt, now));
+    }
+
+    @Scheduled(fixedDelayString = "${collaborative.sync.flush-check-ms:250}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        pending.forEach((pageId, content) -> {
+            if (now - content.lastSubmittedAt >= idleMs || now - content.firstSubmittedAt >= maxDelayMs) {
+                flushPage(pageId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        pending.keySet().forEach(this::flushPage);
+    }
+
+    public void flushPage(String pageId) {
+        PendingContent content = pending.remove(pageId);
+        if (content == null) {
+            return;
+        }
+        if (!write(pageId, content)) {
+            // Keep it for the next check unless newer content has replaced it meanwhile
+            pending.putIfAbsent(pageId, content);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long submitted = submissions.get();
+        long written = writes.get();
+        return Map.of(
+            "pendingPages", pending.size(),
+            "submissions", submitted,
+            "writes", written,
+            "writeThroughs", writeThroughs.get(),
+            "failures", failures.get(),
+            "superseded", superseded.get(),
+            // Submissions per Mongo write
+            "coalescingRatio", written == 0 ? 0.0 : (double) submitted / written,
+            "avgFlushLagMs", written == 0 ? 0 : totalFlushLagMs.get() / written,
+            "maxFlushLagMs", maxFlushLagMs.get()
+        );
+    }
+
+    /**
+     * Returns false if the write failed and should be retried.
+     */
+    private boolean write(String pageId, PendingContent content) {
+        try {
+            Page saved = pageService.writeSyncedContent(pageId, content.title, content.blocks, content.userId,
+                content.baseUpdatedAt);
+            if (saved == null) {
+                superseded.incrementAndGet();
+                System.out.println("[DEBUG] Dropped synced content for page " + pageId + ", written since it was submitted");
+                return true;
+            }
+            // Content submitted during this write read the same updatedAt, but this write is the only change since
+            pending.computeIfPresent(pageId, (id, next) -> Objects.equals(next.baseUpdatedAt, content.baseUpdatedAt)
+                ? next.rebasedOn(saved.getUpdatedAt())
+                : next);
+            writes.incrementAndGet();
+            // Time the oldest coalesced submission waited for its write
+            long lag = System.currentTimeMillis() - content.firstSubmittedAt;
+            totalFlushLagMs.addAndGet(lag);
+            maxFlushLagMs.accumulateAndGet(lag, Math::max);
+            return true;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            System.out.println("[ERROR] Failed to write synced content for page " + pageId + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.clone.notion.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Minimal hashed timing wheel. Items are hashed into wheelSize buckets by their
+ * deadline tick, so each advance only visits the buckets of the ticks that
+ * elapsed. Items further out than one revolution simply stay in their bucket
+ * until a later pass reaches their deadline.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+final class HashedTimingWheel<T> {
+
+    private record Slot<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final ArrayDeque<Slot<T>>[] buckets;
+    private final long startMillis;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * How far ahead items can be scheduled while still expiring on their first pass.
+     */
+    long horizonMillis() {
+        return tickMillis * buckets.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        buckets[(int) (deadlineTick & mask)].add(new Slot<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advance the wheel up to nowMillis and return every item whose deadline passed.
+     */
+    List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        if (targetTick < currentTick) {
+            return expired;
+        }
+
+        // After a long pause every bucket is visited once rather than once per elapsed tick
+        long steps = Math.min(targetTick - currentTick + 1, buckets.length);
+        for (long i = 0; i < steps; i++) {
+            Iterator<Slot<T>> it = buckets[(int) ((currentTick + i) & mask)].iterator();
+            while (it.hasNext()) {
+                Slot<T> slot = it.next();
+                if (slot.deadlineTick() <= targetTick) {
+                    it.remove();
+                    size--;
+                    expired.add(slot.item());
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+        return expired;
+    }
+}
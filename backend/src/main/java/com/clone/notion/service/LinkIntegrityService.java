@@ -0,0 +1,310 @@
+package com.clone.notion.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.model.PageLink;
+import com.clone.notion.payload.response.LinkIntegrityReport;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Background scanner that finds and repairs references to deleted pages:
+ * stale linkedPageIds / backlinkPageIds entries, parentIds of deleted parents
+ * and PageLink rows whose source or target is gone. Pages with no parent and
+ * no backlinks are reported as orphans but left untouched.
+ *
+ * Pages and links are read through cursors with narrow projections and repairs
+ * are written in unordered bulk batches. The scanner sleeps between batches so
+ * it does not compete with foreground traffic.
+ */
+@Service
+@RequiredArgsConstructor
+public class LinkIntegrityService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int ORPHAN_SAMPLE_LIMIT = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final PageRankService pageRankService;
+
+    @Value("${links.integrity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${links.integrity.throttle-ms:50}")
+    private long throttleMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile LinkIntegrityReport lastReport;
+
+    @Scheduled(initialDelayString = "${links.integrity.initial-delay-ms:300000}",
+               fixedDelayString = "${links.integrity.interval-ms:3600000}")
+    public void scheduledScan() {
+        if (enabled) {
+            scan();
+        }
+    }
+
+    public LinkIntegrityReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Run a full scan. Returns the previous report if a scan is already in progress.
+     */
+    public LinkIntegrityReport scan() {
+        if (!running.compareAndSet(false, true)) {
+            return lastReport;
+        }
+
+        Instant startedAt = Instant.now();
+        LinkIntegrityReport report = LinkIntegrityReport.builder()
+            .startedAt(startedAt)
+            .orphanPageSample(new ArrayList<>())
+            .build();
+        try {
+            Set<String> pageIds = loadPageIds();
+            scanPages(pageIds, report);
+            scanLinks(pageIds, report);
+            report.setCompleted(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("[WARN] Link integrity scan interrupted");
+        } catch (Exception e) {
+            System.out.println("[ERROR] Link integrity scan failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            report.setFinishedAt(Instant.now());
+            report.setDurationMs(Duration.between(startedAt, report.getFinishedAt()).toMillis());
+            lastReport = report;
+            running.set(false);
+        }
+
+        System.out.println("[DEBUG] Link integrity scan finished: " + report);
+        return report;
+    }
+
+    private Set<String> loadPageIds() throws InterruptedException {
+        Query query = new Query().cursorBatchSize(BATCH_SIZE);
+        query.fields().include("_id");
+
+        Set<String> pageIds = new HashSet<>();
+        try (Stream<Page> pages = mongoTemplate.stream(query, Page.class)) {
+            Iterator<Page> it = pages.iterator();
+            while (it.hasNext()) {
+                pageIds.add(it.next().getId());
+                if (pageIds.size() % BATCH_SIZE == 0) {
+                    throttle();
+                }
+            }
+        }
+        return pageIds;
+    }
+
+    private void scanPages(Set<String> pageIds, LinkIntegrityReport report) throws InterruptedException {
+        Query query = new Query().cursorBatchSize(BATCH_SIZE);
+        query.fields().include("_id").include("parentId").include("linkedPageIds").include("backlinkPageIds");
+
+        List<Page> suspects = new ArrayList<>();
+        try (Stream<Page> pages = mongoTemplate.stream(query, Page.class)) {
+            Iterator<Page> it = pages.iterator();
+            while (it.hasNext()) {
+                Page page = it.next();
+                report.setPagesScanned(report.getPagesScanned() + 1);
+
+                boolean danglingParent = page.getParentId() != null && !pageIds.contains(page.getParentId());
+                boolean danglingLinks = !pageIds.containsAll(page.getLinkedPageIds())
+                    || !pageIds.containsAll(page.getBacklinkPageIds());
+                if (danglingParent || danglingLinks) {
+                    suspects.add(page);
+                } else if (page.getParentId() == null && page.getBacklinkPageIds().isEmpty()) {
+                    recordOrphan(page.getId(), report);
+                }
+
+                if (suspects.size() >= BATCH_SIZE) {
+                    repairPages(suspects, pageIds, report);
+                    suspects.clear();
+                    throttle();
+                } else if (report.getPagesScanned() % BATCH_SIZE == 0) {
+                    throttle();
+                }
+            }
+        }
+        repairPages(suspects, pageIds, report);
+    }
+
+    private void repairPages(List<Page> suspects, Set<String> pageIds, LinkIntegrityReport report) {
+        if (suspects.isEmpty()) {
+            return;
+        }
+
+        // Re-check against the database so pages created after the id snapshot survive
+        Set<String> candidates = new HashSet<>();
+        for (Page page : suspects) {
+            addMissing(page.getLinkedPageIds(), pageIds, candidates);
+            addMissing(page.getBacklinkPageIds(), pageIds, candidates);
+            if (page.getParentId() != null && !pageIds.contains(page.getParentId())) {
+                candidates.add(page.getParentId());
+            }
+        }
+        Set<String> missing = confirmMissing(candidates, pageIds);
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Page.class);
+        int writes = 0;
+        for (Page page : suspects) {
+            List<String> staleLinked = intersect(page.getLinkedPageIds(), missing);
+            List<String> staleBacklinks = intersect(page.getBacklinkPageIds(), missing);
+            boolean staleParent = page.getParentId() != null && missing.contains(page.getParentId());
+
+            Update update = new Update();
+            if (!staleLinked.isEmpty()) {
+                update.pullAll("linkedPageIds", staleLinked.toArray());
+                report.setDanglingLinkedPageRefs(report.getDanglingLinkedPageRefs() + staleLinked.size());
+            }
+            if (!staleBacklinks.isEmpty()) {
+                update.pullAll("backlinkPageIds", staleBacklinks.toArray());
+                report.setDanglingBacklinkPageRefs(report.getDanglingBacklinkPageRefs() + staleBacklinks.size());
+            }
+            if (staleParent) {
+                update.set("parentId", null);
+                report.setDanglingParentRefs(report.getDanglingParentRefs() + 1);
+            }
+            if (!update.getUpdateObject().isEmpty()) {
+                ops.updateOne(Query.query(Criteria.where("_id").is(page.getId())), update);
+                writes++;
+            }
+
+            boolean hasParent = page.getParentId() != null && !staleParent;
+            if (!hasParent && page.getBacklinkPageIds().size() == staleBacklinks.size()) {
+                recordOrphan(page.getId(), report);
+            }
+        }
+
+        if (writes > 0) {
+            ops.execute();
+        }
+    }
+
+    private void scanLinks(Set<String> pageIds, LinkIntegrityReport report) throws InterruptedException {
+        Query query = new Query().cursorBatchSize(BATCH_SIZE);
+        query.fields().include("_id").include("sourcePageId").include("targetPageId");
+
+        List<PageLink> suspects = new ArrayList<>();
+        try (Stream<PageLink> links = mongoTemplate.stream(query, PageLink.class)) {
+            Iterator<PageLink> it = links.iterator();
+            while (it.hasNext()) {
+                PageLink link = it.next();
+                report.setLinksScanned(report.getLinksScanned() + 1);
+
+                if (!pageIds.contains(link.getSourcePageId()) || !pageIds.contains(link.getTargetPageId())) {
+                    suspects.add(link);
+                }
+
+                if (suspects.size() >= BATCH_SIZE) {
+                    removeBrokenLinks(suspects, pageIds, report);
+                    suspects.clear();
+                    throttle();
+                } else if (report.getLinksScanned() % BATCH_SIZE == 0) {
+                    throttle();
+                }
+            }
+        }
+        removeBrokenLinks(suspects, pageIds, report);
+    }
+
+    private void removeBrokenLinks(List<PageLink> suspects, Set<String> pageIds, LinkIntegrityReport report) {
+        if (suspects.isEmpty()) {
+            return;
+        }
+
+        Set<String> candidates = new HashSet<>();
+        for (PageLink link : suspects) {
+            addMissing(link.getSourcePageId(), pageIds, candidates);
+            addMissing(link.getTargetPageId(), pageIds, candidates);
+        }
+        Set<String> missing = confirmMissing(candidates, pageIds);
+
+        List<PageLink> broken = suspects.stream()
+            .filter(link -> isMissing(link.getSourcePageId(), missing) || isMissing(link.getTargetPageId(), missing))
+            .collect(Collectors.toList());
+        List<String> brokenIds = broken.stream().map(PageLink::getId).collect(Collectors.toList());
+
+        if (!brokenIds.isEmpty()) {
+            broken.forEach(link -> pageRankService.markDirty(link.getSourcePageId()));
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(brokenIds)), PageLink.class);
+            report.setBrokenLinksRemoved(report.getBrokenLinksRemoved() + brokenIds.size());
+        }
+    }
+
+    /**
+     * Of the given ids, return those that still do not exist. Ids found in the
+     * database are added to the snapshot so later batches do not re-check them.
+     */
+    private Set<String> confirmMissing(Set<String> candidates, Set<String> pageIds) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Query query = Query.query(Criteria.where("_id").in(candidates));
+        query.fields().include("_id");
+        for (Page page : mongoTemplate.find(query, Page.class)) {
+            candidates.remove(page.getId());
+            pageIds.add(page.getId());
+        }
+        return candidates;
+    }
+
+    private static void addMissing(Iterable<String> ids, Set<String> pageIds, Set<String> into) {
+        for (String id : ids) {
+            addMissing(id, pageIds, into);
+        }
+    }
+
+    private static void addMissing(String id, Set<String> pageIds, Set<String> into) {
+        if (id != null && !pageIds.contains(id)) {
+            into.add(id);
+        }
+    }
+
+    private static boolean isMissing(String id, Set<String> missing) {
+        return id == null || missing.contains(id);
+    }
+
+    private static List<String> intersect(Set<String> ids, Set<String> missing) {
+        return ids.stream().filter(missing::contains).collect(Collectors.toList());
+    }
+
+    private static void recordOrphan(String pageId, LinkIntegrityReport report) {
+        report.setOrphanPages(report.getOrphanPages() + 1);
+        if (report.getOrphanPageSample().size() < ORPHAN_SAMPLE_LIMIT) {
+            report.getOrphanPageSample().add(pageId);
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        if (throttleMs > 0) {
+            Thread.sleep(throttleMs);
+        }
+    }
+}
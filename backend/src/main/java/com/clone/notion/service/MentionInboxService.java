@@ -0,0 +1,187 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.config.AsyncConfig;
+import com.clone.notion.model.Comment;
+import com.clone.notion.model.MentionCounter;
+import com.clone.notion.model.MentionInboxEntry;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-user inbox of @mentions, written on comment creation (fan-out on write).
+ *
+ * Every mentioned user gets one mention_inbox entry per comment, and an unread
+ * counter in mention_counters kept in step with atomic $inc updates, so the
+ * notification badge is a single document read by id. Fan-out runs on the
+ * async executor so it never delays the comment write.
+ */
+@Service
+@RequiredArgsConstructor
+public class MentionInboxService {
+
+    private static final int SNIPPET_LENGTH = 200;
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Add an inbox entry for every user mentioned in the comment, except its author.
+     * Re-running for the same comment does not create duplicates or double count.
+     */
+    @Async(AsyncConfig.MENTION_FAN_OUT_EXECUTOR)
+    public void fanOut(Comment comment) {
+        try {
+            Set<String> recipients = new LinkedHashSet<>();
+            if (comment.getMentions() != null) {
+                recipients.addAll(comment.getMentions());
+            }
+            recipients.remove(comment.getUserId());
+            if (recipients.isEmpty()) {
+                return;
+            }
+
+            String snippet = comment.getContent();
+            if (snippet != null && snippet.length() > SNIPPET_LENGTH) {
+                snippet = snippet.substring(0, SNIPPET_LENGTH) + "…";
+            }
+
+            Instant now = Instant.now();
+            List<String> ordered = new ArrayList<>(recipients);
+            List<MentionInboxEntry> entries = new ArrayList<>();
+            for (String userId : ordered) {
+                entries.add(MentionInboxEntry.builder()
+                    .userId(userId)
+                    .commentId(comment.getId())
+                    .parentCommentId(comment.getParentCommentId())
+                    .pageId(comment.getPageId())
+                    .blockId(comment.getBlockId())
+                    .authorId(comment.getUserId())
+                    .authorUsername(comment.getUsername())
+                    .snippet(snippet)
+                    .read(false)
+                    .createdAt(now)
+                    .build());
+            }
+
+            // The unique (userId, commentId) index rejects entries that already exist
+            Set<String> inserted = new HashSet<>(ordered);
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MentionInboxEntry.class)
+                    .insert(entries)
+                    .execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> inserted.remove(ordered.get(error.getIndex())));
+            }
+
+            Map<String, Long> increments = new HashMap<>();
+            inserted.forEach(userId -> increments.put(userId, 1L));
+            adjustUnread(increments, now);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Mention fan-out failed for comment " + comment.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Newest entries first. Pass the id of the last entry seen as before to page back.
+     */
+    public List<MentionInboxEntry> getInbox(String userId, String before, int limit, boolean unreadOnly) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (unreadOnly) {
+            criteria = criteria.and("read").is(false);
+        }
+        if (before != null && !before.isEmpty()) {
+            criteria = criteria.and("_id").lt(before);
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "_id"))
+            .limit(Math.max(1, Math.min(limit, MAX_INBOX_PAGE_SIZE)));
+        return mongoTemplate.find(query, MentionInboxEntry.class);
+    }
+
+    public long getUnreadCount(String userId) {
+        MentionCounter counter = mongoTemplate.findById(userId, MentionCounter.class);
+        return counter == null ? 0 : Math.max(0, counter.getUnread());
+    }
+
+    /**
+     * Mark the user's entries read. Returns how many were unread.
+     */
+    public long markRead(String userId, Collection<String> entryIds) {
+        if (entryIds == null || entryIds.isEmpty()) {
+            return 0;
+        }
+        return markRead(Criteria.where("userId").is(userId).and("_id").in(entryIds), userId);
+    }
+
+    public long markAllRead(String userId) {
+        return markRead(Criteria.where("userId").is(userId), userId);
+    }
+
+    private long markRead(Criteria scope, String userId) {
+        long modified = mongoTemplate.updateMulti(new Query(scope.and("read").is(false)),
+            new Update().set("read", true), MentionInboxEntry.class).getModifiedCount();
+        // Decrement by exactly what flipped, so mentions arriving meanwhile stay counted
+        if (modified > 0) {
+            adjustUnread(Map.of(userId, -modified), Instant.now());
+        }
+        return modified;
+    }
+
+    public void removeForComments(Collection<String> commentIds) {
+        if (!commentIds.isEmpty()) {
+            removeEntries(Criteria.where("commentId").in(commentIds));
+        }
+    }
+
+    public void removeForPage(String pageId) {
+        removeEntries(Criteria.where("pageId").is(pageId));
+    }
+
+    public void removeForBlock(String pageId, String blockId) {
+        removeEntries(Criteria.where("pageId").is(pageId).and("blockId").is(blockId));
+    }
+
+    private void removeEntries(Criteria criteria) {
+        // Unread entries being removed must come off their owners' counters
+        Query unreadQuery = new Query(Criteria.where("read").is(false).andOperator(criteria));
+        unreadQuery.fields().include("userId");
+        Map<String, Long> decrements = new HashMap<>();
+        for (MentionInboxEntry entry : mongoTemplate.find(unreadQuery, MentionInboxEntry.class)) {
+            decrements.merge(entry.getUserId(), -1L, Long::sum);
+        }
+
+        mongoTemplate.remove(new Query(criteria), MentionInboxEntry.class);
+        adjustUnread(decrements, Instant.now());
+    }
+
+    private void adjustUnread(Map<String, Long> deltas, Instant now) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MentionCounter.class);
+        deltas.forEach((userId, delta) -> ops.upsert(
+            new Query(Criteria.where("_id").is(userId)),
+            new Update().inc("unread", delta).set("updatedAt", now)));
+        ops.execute();
+    }
+}
@@ -0,0 +1,205 @@
+package com.clone.notion.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.repository.PageRepository;
+
+/**
+ * Bounded LRU cache of each page's ancestor chain (parent first, root last).
+ *
+ * A chain is built from the parent's cached chain when available, so resolving
+ * a deeply nested page costs at most one projected lookup per uncached level,
+ * once. Many pages at once are resolved a level at a time, one query per
+ * level for all of them. Chains are dropped whenever a page on them moves or
+ * is deleted on this instance, and after shares.ancestry-cache.ttl-ms at the
+ * latest, so a move made on another instance is picked up within that bound.
+ * A chain built on a cached one expires no later than it.
+ */
+@Component
+public class PageAncestryCache {
+
+    private static final int MAX_DEPTH = 100;
+
+    private record Chain(List<String> ancestors, long expiresAt) {
+    }
+
+    private final PageRepository pageRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<String, Chain> chains;
+
+    public PageAncestryCache(PageRepository pageRepository,
+                             @Value("${shares.ancestry-cache.max-entries:20000}") int maxEntries,
+                             @Value("${shares.ancestry-cache.ttl-ms:30000}") long ttlMillis) {
+        this.pageRepository = pageRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.chains = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Chain> eldest) {
+                return size() > PageAncestryCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Ancestors of the page, nearest first. Empty for root pages and unknown ids.
+     */
+    public List<String> getAncestors(String pageId) {
+        return load(pageId, new HashSet<>(), epoch.get(), System.currentTimeMillis()).ancestors();
+    }
+
+    /**
+     * Ancestors of each page, nearest first, walking up all uncached chains together.
+     */
+    public Map<String, List<String>> getAncestors(Collection<String> pageIds) {
+        long observedEpoch = epoch.get();
+        long now = System.currentTimeMillis();
+        Map<String, Chain> resolved = new HashMap<>();
+        Set<String> frontier = new HashSet<>();
+        synchronized (chains) {
+            for (String pageId : pageIds) {
+                Chain cached = cached(pageId, now);
+                if (cached != null) {
+                    resolved.put(pageId, cached);
+                } else {
+                    frontier.add(pageId);
+                }
+            }
+        }
+
+        // Parent of every page looked up; null for roots and unknown ids
+        Map<String, String> parents = new HashMap<>();
+        for (int depth = 0; !frontier.isEmpty() && depth < MAX_DEPTH; depth++) {
+            Map<String, String> level = new HashMap<>();
+            pageRepository.findHierarchyByIdIn(frontier).forEach(page -> level.put(page.getId(), page.getParentId()));
+            Set<String> next = new HashSet<>();
+            for (String pageId : frontier) {
+                String parentId = level.get(pageId);
+                parents.put(pageId, parentId);
+                if (parentId != null && !parents.containsKey(parentId) && !resolved.containsKey(parentId)) {
+                    synchronized (chains) {
+                        Chain cached = cached(parentId, now);
+                        if (cached != null) {
+                            resolved.put(parentId, cached);
+                        } else {
+                            next.add(parentId);
+                        }
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        Map<String, Chain> built = new HashMap<>();
+        for (String pageId : parents.keySet()) {
+            built.put(pageId, assemble(pageId, parents, resolved, now + ttlMillis));
+        }
+        synchronized (chains) {
+            // Skip caching if a move happened while the chains were being built
+            if (epoch.get() == observedEpoch) {
+                chains.putAll(built);
+            }
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String pageId : pageIds) {
+            Chain chain = built.containsKey(pageId) ? built.get(pageId) : resolved.get(pageId);
+            result.put(pageId, chain != null ? chain.ancestors() : Collections.emptyList());
+        }
+        return result;
+    }
+
+    private static Chain assemble(String pageId, Map<String, String> parents, Map<String, Chain> cached, long expiresAt) {
+        List<String> ancestors = new ArrayList<>();
+        Set<String> visiting = new HashSet<>();
+        visiting.add(pageId);
+        String current = parents.get(pageId);
+        // Stops at a root, a cached chain, a parentId cycle or the depth limit
+        while (current != null && visiting.add(current) && ancestors.size() < MAX_DEPTH) {
+            ancestors.add(current);
+            Chain rest = cached.get(current);
+            if (rest != null) {
+                ancestors.addAll(rest.ancestors());
+                expiresAt = Math.min(expiresAt, rest.expiresAt());
+                break;
+            }
+            current = parents.get(current);
+        }
+        return new Chain(Collections.unmodifiableList(ancestors), expiresAt);
+    }
+
+    private Chain load(String pageId, Set<String> visiting, long observedEpoch, long now) {
+        synchronized (chains) {
+            Chain cached = cached(pageId, now);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Guard against parentId cycles and runaway depth
+        if (!visiting.add(pageId) || visiting.size() > MAX_DEPTH) {
+            return new Chain(Collections.emptyList(), now + ttlMillis);
+        }
+
+        String parentId = pageRepository.findHierarchyById(pageId)
+            .map(Page::getParentId)
+            .orElse(null);
+
+        Chain chain;
+        if (parentId == null) {
+            chain = new Chain(Collections.emptyList(), now + ttlMillis);
+        } else {
+            Chain parentChain = load(parentId, visiting, observedEpoch, now);
+            List<String> built = new ArrayList<>(parentChain.ancestors().size() + 1);
+            built.add(parentId);
+            built.addAll(parentChain.ancestors());
+            chain = new Chain(Collections.unmodifiableList(built), Math.min(now + ttlMillis, parentChain.expiresAt()));
+        }
+
+        // Skip caching if a move happened while the chain was being built
+        synchronized (chains) {
+            if (epoch.get() == observedEpoch) {
+                chains.put(pageId, chain);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * The cached chain of the page, or null if there is none or it has expired. Caller holds the lock.
+     */
+    private Chain cached(String pageId, long now) {
+        Chain chain = chains.get(pageId);
+        if (chain != null && now >= chain.expiresAt()) {
+            chains.remove(pageId);
+            return null;
+        }
+        return chain;
+    }
+
+    /**
+     * Drop the chains of the page and of every cached descendant.
+     */
+    public void invalidate(String pageId) {
+        synchronized (chains) {
+            epoch.incrementAndGet();
+            chains.remove(pageId);
+            chains.values().removeIf(chain -> chain.ancestors().contains(pageId));
+        }
+    }
+}
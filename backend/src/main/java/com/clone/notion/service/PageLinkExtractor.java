@@ -0,0 +1,106 @@
+package com.clone.notion.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses page link markup out of block content.
+ *
+ * Two formats are produced by the editor:
+ *   [[Page Title]]         - resolved against the owner's page titles
+ *   [link text](pageId)    - inserted by the autocomplete, carries the target id
+ */
+final class PageLinkExtractor {
+
+    // Same limits as extractPageLinks() in the frontend page-link util
+    private static final Pattern WIKI_LINK_PATTERN = Pattern.compile("\\[\\[([^\\]]{1,100})\\]\\]");
+
+    // Only ids are accepted as targets so that ordinary URLs are not treated as page links
+    private static final Pattern MARKDOWN_LINK_PATTERN = Pattern.compile("(?<!\\[)\\[([^\\[\\]]+)\\]\\(([A-Za-z0-9_-]{1,64})\\)");
+
+    private static final int MAX_SNIPPET_LENGTH = 200;
+
+    private PageLinkExtractor() {
+    }
+
+    /**
+     * A link found in block content. Exactly one of pageId / title is set.
+     */
+    record LinkRef(String text, String pageId, String title, int position) {
+    }
+
+    static List<LinkRef> extract(String content) {
+        List<LinkRef> refs = new ArrayList<>();
+        if (content == null || content.indexOf('[') < 0) {
+            return refs;
+        }
+
+        Matcher markdown = MARKDOWN_LINK_PATTERN.matcher(content);
+        while (markdown.find()) {
+            refs.add(new LinkRef(markdown.group(1).trim(), markdown.group(2), null, markdown.start()));
+        }
+
+        Matcher wiki = WIKI_LINK_PATTERN.matcher(content);
+        while (wiki.find()) {
+            String title = wiki.group(1).trim();
+            if (!title.isEmpty()) {
+                refs.add(new LinkRef(title, null, title, wiki.start()));
+            }
+        }
+
+        return refs;
+    }
+
+    /**
+     * The sentence containing the given position, trimmed to MAX_SNIPPET_LENGTH
+     * characters around the position.
+     */
+    static String contextSnippet(String content, int position) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        int anchor = Math.max(0, Math.min(position, content.length() - 1));
+
+        int start = anchor;
+        while (start > 0 && !isSentenceEnd(content, start - 1)) {
+            start--;
+        }
+        int end = anchor;
+        while (end < content.length() && !isSentenceEnd(content, end)) {
+            end++;
+        }
+        if (end < content.length() && content.charAt(end) != '\n') {
+            end++; // keep the terminating punctuation
+        }
+
+        boolean clippedStart = false;
+        boolean clippedEnd = false;
+        if (end - start > MAX_SNIPPET_LENGTH) {
+            int half = MAX_SNIPPET_LENGTH / 2;
+            int clipStart = Math.max(start, anchor - half);
+            int clipEnd = Math.min(end, clipStart + MAX_SNIPPET_LENGTH);
+            clippedStart = clipStart > start;
+            clippedEnd = clipEnd < end;
+            start = clipStart;
+            end = clipEnd;
+        }
+
+        String snippet = content.substring(start, end).trim();
+        if (snippet.isEmpty()) {
+            return null;
+        }
+        return (clippedStart ? "…" : "") + snippet + (clippedEnd ? "…" : "");
+    }
+
+    private static boolean isSentenceEnd(String content, int index) {
+        char c = content.charAt(index);
+        if (c == '\n') {
+            return true;
+        }
+        // Sentence punctuation only counts when followed by whitespace or the end of the text
+        return (c == '.' || c == '!' || c == '?')
+            && (index + 1 == content.length() || Character.isWhitespace(content.charAt(index + 1)));
+    }
+}
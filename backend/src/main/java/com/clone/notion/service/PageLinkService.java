@@ -1,16 +1,30 @@
 package com.clone.notion.service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.clone.notion.model.Block;
 import com.clone.notion.model.Page;
 import com.clone.notion.model.PageLink;
+import com.clone.notion.payload.response.BacklinkResponse;
 import com.clone.notion.repository.PageLinkRepository;
 import com.clone.notion.repository.PageRepository;
 
@@ -22,6 +36,12 @@ public class PageLinkService {
 
     private final PageLinkRepository pageLinkRepository;
     private final PageRepository pageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final PageRankService pageRankService;
+    private final PageShareService pageShareService;
+
+    private static final int LINK_TEXT_SEARCH_LIMIT = 100;
+    private static final int BACKFILL_BATCH_SIZE = 500;
 
     /**
      * Create a link from source page to target page
@@ -48,8 +68,11 @@ public class PageLinkService {
             .sourcePageId(sourcePageId)
             .targetPageId(targetPageId)
             .linkText(linkText)
+            .linkTextLower(PageLink.normalizeLinkText(linkText))
+            .ownerUserId(sourcePage.getUserId())
             .blockId(blockId)
             .position(position)
+            .contextSnippet(findContextSnippet(sourcePage, blockId, linkText, position))
             .createdAt(Instant.now())
             .updatedAt(Instant.now())
             .build();
@@ -58,6 +81,7 @@ public class PageLinkService {
 
         // Update page link sets
         updatePageLinkSets(sourcePageId, targetPageId);
+        pageRankService.markDirty(sourcePageId);
 
         return savedLink;
     }
@@ -72,6 +96,7 @@ public class PageLinkService {
         if (link.isPresent()) {
             pageLinkRepository.delete(link.get());
             updatePageLinkSets(sourcePageId, targetPageId);
+            pageRankService.markDirty(sourcePageId);
         }
     }
 
@@ -89,6 +114,80 @@ public class PageLinkService {
         return pageLinkRepository.findByTargetPageId(pageId);
     }
 
+    /**
+     * Get backlinks to a page together with the source page's title/icon and the
+     * sentence around each reference, so the backlinks panel needs no page fetches.
+     * Only links from pages the user can view are returned, since snippets quote their content.
+     */
+    public List<BacklinkResponse> getBacklinksWithContext(String pageId, String userId) {
+        Set<String> sourcePageIds = new HashSet<>();
+        Set<String> deniedPageIds = new HashSet<>();
+        List<PageLink> backlinks = new ArrayList<>();
+        for (PageLink link : pageLinkRepository.findByTargetPageId(pageId)) {
+            String sourcePageId = link.getSourcePageId();
+            if (sourcePageIds.contains(sourcePageId)
+                    || (!deniedPageIds.contains(sourcePageId) && pageShareService.hasAccess(sourcePageId, userId, "view"))) {
+                sourcePageIds.add(sourcePageId);
+                backlinks.add(link);
+            } else {
+                deniedPageIds.add(sourcePageId);
+            }
+        }
+        if (backlinks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Links extracted before snippets existed need the source blocks to build one
+        boolean needBlocks = backlinks.stream().anyMatch(link -> link.getContextSnippet() == null);
+
+        Query query = Query.query(Criteria.where("_id").in(sourcePageIds));
+        query.fields().include("_id").include("title").include("icon");
+        if (needBlocks) {
+            query.fields().include("blocks").include("packedBlocks");
+        }
+        Map<String, Page> sourcePages = new HashMap<>();
+        for (Page page : mongoTemplate.find(query, Page.class)) {
+            sourcePages.put(page.getId(), page);
+        }
+
+        List<BacklinkResponse> results = new ArrayList<>();
+        for (PageLink link : backlinks) {
+            Page source = sourcePages.get(link.getSourcePageId());
+            if (source == null) {
+                continue;
+            }
+            String snippet = link.getContextSnippet() != null
+                ? link.getContextSnippet()
+                : findContextSnippet(source, link.getBlockId(), link.getLinkText(), link.getPosition());
+            results.add(BacklinkResponse.builder()
+                .linkId(link.getId())
+                .sourcePageId(source.getId())
+                .sourcePageTitle(source.getTitle())
+                .sourcePageIcon(source.getIcon())
+                .blockId(link.getBlockId())
+                .linkText(link.getLinkText())
+                .position(link.getPosition())
+                .contextSnippet(snippet)
+                .updatedAt(link.getUpdatedAt())
+                .build());
+        }
+        return results;
+    }
+
+    private static String findContextSnippet(Page page, String blockId, String linkText, Integer position) {
+        if (blockId == null) {
+            return null;
+        }
+        for (Block block : page.getBlocks()) {
+            if (block != null && blockId.equals(block.getId()) && block.getContent() != null) {
+                int at = position != null ? position
+                    : (linkText != null ? Math.max(0, block.getContent().indexOf(linkText)) : 0);
+                return PageLinkExtractor.contextSnippet(block.getContent(), at);
+            }
+        }
+        return null;
+    }
+
     /**
      * Get pages that link to the given page
      */
@@ -143,31 +242,333 @@ public class PageLinkService {
     }
 
     /**
-     * Remove all links when a page is deleted
+     * Re-extract links from the blocks that changed since the previous save and
+     * apply only the difference as one bulk write. A null previousBlocks list
+     * treats every block as changed (e.g. for a newly created page).
+     */
+    public void syncLinksFromBlocks(Page page, List<Block> previousBlocks) {
+        String sourcePageId = page.getId();
+        Set<String> changedBlockIds = findChangedBlockIds(previousBlocks, page.getBlocks());
+        if (changedBlockIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, PageLink> extracted = extractLinks(page, changedBlockIds);
+        Map<String, PageLink> existing = new HashMap<>();
+        for (PageLink link : pageLinkRepository.findBySourcePageIdAndBlockIdIn(sourcePageId, changedBlockIds)) {
+            existing.put(linkKey(link.getBlockId(), link.getTargetPageId()), link);
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PageLink.class);
+        List<PageLink> inserts = new ArrayList<>();
+        int updates = 0;
+        Instant now = Instant.now();
+
+        for (Map.Entry<String, PageLink> entry : extracted.entrySet()) {
+            PageLink current = existing.remove(entry.getKey());
+            PageLink wanted = entry.getValue();
+            if (current == null) {
+                inserts.add(wanted);
+            } else if (!Objects.equals(current.getLinkText(), wanted.getLinkText())
+                    || !Objects.equals(current.getPosition(), wanted.getPosition())
+                    || !Objects.equals(current.getContextSnippet(), wanted.getContextSnippet())) {
+                ops.updateOne(
+                    Query.query(Criteria.where("_id").is(current.getId())),
+                    new Update()
+                        .set("linkText", wanted.getLinkText())
+                        .set("linkTextLower", wanted.getLinkTextLower())
+                        .set("position", wanted.getPosition())
+                        .set("contextSnippet", wanted.getContextSnippet())
+                        .set("updatedAt", now));
+                updates++;
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            ops.insert(inserts);
+        }
+
+        // Anything left over no longer appears in its block
+        if (!existing.isEmpty()) {
+            List<String> staleIds = existing.values().stream()
+                .map(PageLink::getId)
+                .collect(Collectors.toList());
+            ops.remove(Query.query(Criteria.where("_id").in(staleIds)));
+        }
+
+        if (inserts.isEmpty() && updates == 0 && existing.isEmpty()) {
+            return;
+        }
+
+        ops.execute();
+        pageRankService.markDirty(sourcePageId);
+        System.out.println("[DEBUG] Synced links for page " + sourcePageId + ": +" + inserts.size()
+            + " ~" + updates + " -" + existing.size() + " across " + changedBlockIds.size() + " changed blocks");
+
+        refreshLinkSets(page);
+    }
+
+    private static Set<String> findChangedBlockIds(List<Block> previousBlocks, List<Block> currentBlocks) {
+        Map<String, String> previousContent = new HashMap<>();
+        if (previousBlocks != null) {
+            for (Block block : previousBlocks) {
+                if (block != null && block.getId() != null) {
+                    previousContent.put(block.getId(), block.getContent());
+                }
+            }
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (Block block : currentBlocks) {
+            if (block == null || block.getId() == null) {
+                continue;
+            }
+            boolean known = previousContent.containsKey(block.getId());
+            String before = previousContent.remove(block.getId());
+            if (!known || !Objects.equals(before, block.getContent())) {
+                changed.add(block.getId());
+            }
+        }
+
+        // Blocks that were removed from the page
+        changed.addAll(previousContent.keySet());
+        return changed;
+    }
+
+    private Map<String, PageLink> extractLinks(Page page, Set<String> blockIds) {
+        Map<String, List<PageLinkExtractor.LinkRef>> refsByBlock = new LinkedHashMap<>();
+        Map<String, String> contentByBlock = new HashMap<>();
+        Set<String> referencedIds = new HashSet<>();
+        Set<String> referencedTitles = new HashSet<>();
+
+        for (Block block : page.getBlocks()) {
+            if (block == null || block.getId() == null || !blockIds.contains(block.getId())) {
+                continue;
+            }
+            List<PageLinkExtractor.LinkRef> refs = PageLinkExtractor.extract(block.getContent());
+            if (refs.isEmpty()) {
+                continue;
+            }
+            refsByBlock.put(block.getId(), refs);
+            contentByBlock.put(block.getId(), block.getContent());
+            for (PageLinkExtractor.LinkRef ref : refs) {
+                if (ref.pageId() != null) {
+                    referencedIds.add(ref.pageId());
+                } else {
+                    referencedTitles.add(ref.title());
+                }
+            }
+        }
+
+        Map<String, PageLink> links = new LinkedHashMap<>();
+        if (refsByBlock.isEmpty()) {
+            return links;
+        }
+
+        Set<String> knownIds = referencedIds.isEmpty() ? Set.of() : findLinkablePageIds(page.getUserId(), referencedIds);
+        Map<String, String> idsByTitle = referencedTitles.isEmpty()
+            ? Map.of()
+            : findPageIdsByTitle(page.getUserId(), referencedTitles);
+
+        Instant now = Instant.now();
+        for (Map.Entry<String, List<PageLinkExtractor.LinkRef>> entry : refsByBlock.entrySet()) {
+            String blockId = entry.getKey();
+            for (PageLinkExtractor.LinkRef ref : entry.getValue()) {
+                String targetPageId = ref.pageId() != null
+                    ? (knownIds.contains(ref.pageId()) ? ref.pageId() : null)
+                    : idsByTitle.get(ref.title());
+                if (targetPageId == null || targetPageId.equals(page.getId())) {
+                    continue;
+                }
+                links.putIfAbsent(linkKey(blockId, targetPageId), PageLink.builder()
+                    .sourcePageId(page.getId())
+                    .targetPageId(targetPageId)
+                    .linkText(ref.text())
+                    .linkTextLower(PageLink.normalizeLinkText(ref.text()))
+                    .ownerUserId(page.getUserId())
+                    .blockId(blockId)
+                    .position(ref.position())
+                    .contextSnippet(PageLinkExtractor.contextSnippet(contentByBlock.get(blockId), ref.position()))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+            }
+        }
+        return links;
+    }
+
+    /**
+     * The ids of pages the user owns or can view. Any other id is treated like an
+     * unknown one, so markup can neither link to it nor tell whether it exists.
+     */
+    private Set<String> findLinkablePageIds(String userId, Collection<String> pageIds) {
+        Query query = Query.query(Criteria.where("_id").in(pageIds));
+        query.fields().include("_id").include("userId");
+        Set<String> linkable = new HashSet<>();
+        for (Page target : mongoTemplate.find(query, Page.class)) {
+            if (Objects.equals(target.getUserId(), userId) || pageShareService.hasAccess(target.getId(), userId, "view")) {
+                linkable.add(target.getId());
+            }
+        }
+        return linkable;
+    }
+
+    private Map<String, String> findPageIdsByTitle(String userId, Collection<String> titles) {
+        Query query = Query.query(Criteria.where("userId").is(userId).and("title").in(titles));
+        query.fields().include("_id").include("title");
+        Map<String, String> idsByTitle = new HashMap<>();
+        for (Page page : mongoTemplate.find(query, Page.class)) {
+            idsByTitle.putIfAbsent(page.getTitle(), page.getId());
+        }
+        return idsByTitle;
+    }
+
+    /**
+     * Bring linkedPageIds / backlinkPageIds in line with the page's current links
+     * using targeted updates instead of re-saving whole pages.
+     */
+    private void refreshLinkSets(Page page) {
+        String sourcePageId = page.getId();
+        Set<String> before = new HashSet<>(page.getLinkedPageIds());
+        Set<String> after = new HashSet<>(mongoTemplate.findDistinct(
+            Query.query(Criteria.where("sourcePageId").is(sourcePageId)), "targetPageId", PageLink.class, String.class));
+
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(sourcePageId)),
+            new Update().set("linkedPageIds", after),
+            Page.class);
+        page.setLinkedPageIds(after);
+
+        Set<String> added = new HashSet<>(after);
+        added.removeAll(before);
+        Set<String> removed = new HashSet<>(before);
+        removed.removeAll(after);
+
+        if (!added.isEmpty()) {
+            mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(added)),
+                new Update().addToSet("backlinkPageIds", sourcePageId),
+                Page.class);
+        }
+        if (!removed.isEmpty()) {
+            mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(removed)),
+                new Update().pull("backlinkPageIds", sourcePageId),
+                Page.class);
+        }
+    }
+
+    private static String linkKey(String blockId, String targetPageId) {
+        return blockId + "|" + targetPageId;
+    }
+
+    /**
+     * Remove all links when a page is deleted, including the page's id in the
+     * linkedPageIds / backlinkPageIds of the pages on the other end
      */
     public void removeAllLinksForPage(String pageId) {
+        Query byId = Query.query(Criteria.where("_id").is(pageId));
+        byId.fields().include("linkedPageIds").include("backlinkPageIds");
+        Page page = mongoTemplate.findOne(byId, Page.class);
+
         pageLinkRepository.deleteBySourcePageId(pageId);
         pageLinkRepository.deleteByTargetPageId(pageId);
+        pageRankService.markDirty(pageId);
+
+        if (page == null) {
+            return;
+        }
+        pageRankService.markDirty(page.getBacklinkPageIds());
+        if (!page.getLinkedPageIds().isEmpty()) {
+            mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(page.getLinkedPageIds())),
+                new Update().pull("backlinkPageIds", pageId),
+                Page.class);
+        }
+        if (!page.getBacklinkPageIds().isEmpty()) {
+            mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(page.getBacklinkPageIds())),
+                new Update().pull("linkedPageIds", pageId),
+                Page.class);
+        }
+        mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(pageId)),
+            new Update().set("linkedPageIds", new HashSet<String>()).set("backlinkPageIds", new HashSet<String>()),
+            Page.class);
     }
 
     /**
-     * Search for pages by link text
+     * Search for pages by link text. Matches are prefix matches on the normalized
+     * link text, scoped to links in the user's own pages, so the lookup is a single
+     * bounded range scan on owner_link_text_idx.
      */
     public List<Page> searchPagesByLinkText(String userId, String searchText) {
-        List<PageLink> links = pageLinkRepository.findByPageIds(
-            pageRepository.findByUserIdOrderByParentIdAscOrderAsc(userId)
-                .stream()
-                .map(Page::getId)
-                .collect(Collectors.toList())
-        );
-        
+        String prefix = PageLink.normalizeLinkText(searchText);
+        if (prefix == null || prefix.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<PageLink> links = pageLinkRepository.findByOwnerUserIdAndLinkTextPrefix(
+            userId, "^" + escapeRegex(prefix), PageRequest.of(0, LINK_TEXT_SEARCH_LIMIT));
+
         List<String> pageIds = links.stream()
-            .filter(link -> link.getLinkText() != null && 
-                    link.getLinkText().toLowerCase().contains(searchText.toLowerCase()))
             .map(PageLink::getTargetPageId)
             .distinct()
             .collect(Collectors.toList());
         
         return pageRepository.findAllById(pageIds);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Fill ownerUserId / linkTextLower on links written before those fields existed.
+     * Links whose source page no longer exists get a null owner so they are not revisited.
+     */
+    public int backfillLinkSearchFields() {
+        Query pending = Query.query(Criteria.where("ownerUserId").exists(false)).limit(BACKFILL_BATCH_SIZE);
+        int total = 0;
+
+        List<PageLink> batch;
+        while (!(batch = mongoTemplate.find(pending, PageLink.class)).isEmpty()) {
+            Set<String> sourceIds = batch.stream()
+                .map(PageLink::getSourcePageId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+            Query owners = Query.query(Criteria.where("_id").in(sourceIds));
+            owners.fields().include("_id").include("userId");
+            Map<String, String> ownerBySource = new HashMap<>();
+            for (Page page : mongoTemplate.find(owners, Page.class)) {
+                if (page.getUserId() != null) {
+                    ownerBySource.put(page.getId(), page.getUserId());
+                }
+            }
+
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PageLink.class);
+            for (PageLink link : batch) {
+                ops.updateOne(
+                    Query.query(Criteria.where("_id").is(link.getId())),
+                    new Update()
+                        .set("ownerUserId", ownerBySource.get(link.getSourcePageId()))
+                        .set("linkTextLower", PageLink.normalizeLinkText(link.getLinkText())));
+            }
+            ops.execute();
+            total += batch.size();
+        }
+
+        if (total > 0) {
+            System.out.println("[DEBUG] Backfilled search fields on " + total + " page links");
+        }
+        return total;
+    }
+
+    private static String escapeRegex(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,364 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockOperation;
+import com.clone.notion.model.OperationLogEntry;
+import com.clone.notion.model.OperationType;
+import com.clone.notion.model.Page;
+import com.clone.notion.payload.response.OperationBatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Server-side operation log for collaborative block editing.
+ *
+ * Clients send small batches of block operations against the revision they
+ * last saw. The batch is rebased onto the current page by BlockMerge, claims
+ * the page's next revision in page_operation_log as a pending entry and is
+ * written to the page with a compare-and-set on updatedAt, so neither a
+ * concurrent batch nor a full-page save is overwritten silently; either one
+ * makes the batch give the revision back and retry against the new state.
+ * The entry is committed only after the page write, and readers never see
+ * pending entries, so clients are never sent a batch the page does not have.
+ * A pending entry left behind by a node that stopped mid-commit is committed
+ * or removed, depending on whether its page write landed, once it is older
+ * than pending-timeout-ms. The reply carries the operations as applied plus the
+ * batches the client missed, and applied batches are pushed to the page's
+ * presence sockets.
+ *
+ * Full-page writes (sync-content, merge, PUT) still go through PageService and
+ * are logged as REPLACE_DOCUMENT so operation clients know to refetch.
+ */
+@Service
+@RequiredArgsConstructor
+public class PageOperationService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int TRIM_EVERY = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final PageLinkService pageLinkService;
+    private final PageShareService pageShareService;
+    private final PresenceService presenceService;
+    private final PageVersionService pageVersionService;
+    private final ObjectMapper objectMapper;
+
+    // Batches for one page are applied one at a time on this node; other nodes are caught by the CAS
+    private final Object[] locks = createLocks();
+
+    @Value("${collaborative.operations.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${collaborative.operations.max-log-entries-per-page:1000}")
+    private int maxLogEntriesPerPage;
+
+    @Value("${collaborative.operations.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${collaborative.operations.pending-timeout-ms:30000}")
+    private long pendingTimeoutMs;
+
+    /**
+     * Apply a batch of operations. Returns null if the page does not exist.
+     *
+     * @throws IllegalArgumentException if the batch is empty, too large, or has operations without ids or with the same id
+     * @throws IllegalStateException if the page kept changing underneath the batch
+     */
+    public OperationBatchResponse applyOperations(String pageId, String userId, Long baseRevision,
+                                                  List<BlockOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No operations");
+        }
+        if (operations.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " operations per batch");
+        }
+        Set<String> operationIds = new HashSet<>();
+        for (BlockOperation operation : operations) {
+            if (operation.getId() == null || operation.getType() == null) {
+                throw new IllegalArgumentException("Every operation needs an id and a type");
+            }
+            if (!operationIds.add(operation.getId())) {
+                throw new IllegalArgumentException("Duplicate operation id " + operation.getId());
+            }
+        }
+
+        synchronized (lockFor(pageId)) {
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                Page page = mongoTemplate.findById(pageId, Page.class);
+                if (page == null) {
+                    return null;
+                }
+                long head = currentRevision(pageId);
+                Set<String> alreadyApplied = findAppliedOperationIds(pageId, operationIds);
+
+                BlockMerge merge = new BlockMerge(page.getBlocks(), page.getTitle(),
+                    blockId -> findDeletion(pageId, blockId));
+                List<BlockOperation> applied = new ArrayList<>();
+                List<String> dropped = new ArrayList<>();
+                for (BlockOperation operation : operations) {
+                    BlockOperation result = alreadyApplied.contains(operation.getId()) ? null : merge.apply(operation);
+                    if (result != null) {
+                        applied.add(result);
+                    } else {
+                        dropped.add(operation.getId());
+                    }
+                }
+
+                if (applied.isEmpty()) {
+                    return buildResponse(pageId, head, applied, dropped, baseRevision, head);
+                }
+
+                Instant now = Instant.now();
+                OperationLogEntry entry = OperationLogEntry.builder()
+                    .pageId(pageId)
+                    .revision(head + 1)
+                    .userId(userId)
+                    .operations(applied)
+                    .createdAt(now)
+                    .pending(true)
+                    .build();
+                try {
+                    entry = mongoTemplate.insert(entry);
+                } catch (DuplicateKeyException e) {
+                    // Another node holds this revision
+                    recoverAbandoned(pageId, head + 1);
+                    continue;
+                }
+
+                Query unchanged = new Query(Criteria.where("_id").is(pageId).and("updatedAt").is(page.getUpdatedAt()));
+                Update update = new Update()
+                    .set("blocks", merge.getBlocks())
+                    .unset("packedBlocks")
+                    .unset("packedText")
+                    .set("title", merge.getTitle())
+                    .set("updatedAt", now);
+                if (mongoTemplate.updateFirst(unchanged, update, Page.class).getModifiedCount() == 0) {
+                    // The page was saved since we read it; give the revision back and rebase again.
+                    // Nobody has read the entry, and nobody can take a later revision while it exists.
+                    mongoTemplate.remove(entry);
+                    continue;
+                }
+                commit(entry);
+
+                List<Block> previousBlocks = page.getBlocks();
+                page.setBlocks(merge.getBlocks());
+                page.setTitle(merge.getTitle());
+                page.setUpdatedAt(now);
+                afterCommit(page, previousBlocks, entry);
+                return buildResponse(pageId, entry.getRevision(), applied, dropped, baseRevision, head);
+            }
+        }
+        throw new IllegalStateException("Page " + pageId + " is changing too fast, retry the batch");
+    }
+
+    /**
+     * Batches after the given revision, for clients catching up.
+     */
+    public OperationBatchResponse getOperationsSince(String pageId, long sinceRevision) {
+        long head = currentRevision(pageId);
+        return buildResponse(pageId, head, List.of(), List.of(), sinceRevision, head);
+    }
+
+    /**
+     * The latest committed revision.
+     */
+    public long currentRevision(String pageId) {
+        Query query = new Query(committed(pageId))
+            .with(Sort.by(Sort.Direction.DESC, "revision"))
+            .limit(1);
+        query.fields().include("revision");
+        OperationLogEntry latest = mongoTemplate.findOne(query, OperationLogEntry.class);
+        return latest != null ? latest.getRevision() : 0;
+    }
+
+    /**
+     * Record that the page was overwritten outside the operation log.
+     * Failures are logged; the page save itself has already happened.
+     */
+    public void recordReplace(String pageId, String userId) {
+        try {
+            synchronized (lockFor(pageId)) {
+                for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                    OperationLogEntry entry = OperationLogEntry.builder()
+                        .pageId(pageId)
+                        .revision(currentRevision(pageId) + 1)
+                        .userId(userId)
+                        .operations(List.of(BlockOperation.builder().type(OperationType.REPLACE_DOCUMENT).build()))
+                        .createdAt(Instant.now())
+                        .build();
+                    try {
+                        entry = mongoTemplate.insert(entry);
+                    } catch (DuplicateKeyException e) {
+                        recoverAbandoned(pageId, entry.getRevision());
+                        continue;
+                    }
+                    publish(entry);
+                    trim(pageId, entry.getRevision());
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to record page replace for " + pageId + ": " + e.getMessage());
+        }
+    }
+
+    public void deleteLogForPage(String pageId) {
+        mongoTemplate.remove(new Query(Criteria.where("pageId").is(pageId)), OperationLogEntry.class);
+    }
+
+    private void afterCommit(Page page, List<Block> previousBlocks, OperationLogEntry entry) {
+        try {
+            pageLinkService.syncLinksFromBlocks(page, previousBlocks);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to sync links for page " + page.getId() + ": " + e.getMessage());
+        }
+        pageShareService.invalidateSharedPage(page.getId());
+        pageVersionService.record(page.getId(), entry.getUserId(), page.getTitle(), page.getBlocks());
+        publish(entry);
+        trim(page.getId(), entry.getRevision());
+    }
+
+    private OperationBatchResponse buildResponse(String pageId, long revision, List<BlockOperation> applied,
+                                                 List<String> dropped, Long baseRevision, long head) {
+        List<OperationLogEntry> missed = List.of();
+        boolean resyncRequired = false;
+        if (baseRevision != null && baseRevision < head) {
+            Query query = new Query(committed(pageId).and("revision").gt(baseRevision).lte(head))
+                .with(Sort.by(Sort.Direction.ASC, "revision"))
+                .limit(maxLogEntriesPerPage);
+            missed = mongoTemplate.find(query, OperationLogEntry.class);
+            // Trimmed
+            if (missed.size() != head - baseRevision) {
+                missed = List.of();
+                resyncRequired = true;
+            }
+        }
+        return OperationBatchResponse.builder()
+            .revision(revision)
+            .applied(applied)
+            .dropped(dropped)
+            .missed(missed)
+            .resyncRequired(resyncRequired)
+            .build();
+    }
+
+    private Set<String> findAppliedOperationIds(String pageId, Set<String> operationIds) {
+        Query query = new Query(committed(pageId).and("operations.id").in(operationIds));
+        query.fields().include("operations.id");
+        Set<String> applied = new HashSet<>();
+        for (OperationLogEntry entry : mongoTemplate.find(query, OperationLogEntry.class)) {
+            entry.getOperations().forEach(operation -> {
+                if (operationIds.contains(operation.getId())) {
+                    applied.add(operation.getId());
+                }
+            });
+        }
+        return applied;
+    }
+
+    /**
+     * The most recent DELETE of the block, used to re-anchor operations that point at it.
+     */
+    private BlockOperation findDeletion(String pageId, String blockId) {
+        Query query = new Query(committed(pageId).and("operations").elemMatch(
+                Criteria.where("type").is(OperationType.DELETE_BLOCK).and("blockId").is(blockId)))
+            .with(Sort.by(Sort.Direction.DESC, "revision"))
+            .limit(1);
+        OperationLogEntry entry = mongoTemplate.findOne(query, OperationLogEntry.class);
+        if (entry == null) {
+            return null;
+        }
+        for (int i = entry.getOperations().size() - 1; i >= 0; i--) {
+            BlockOperation operation = entry.getOperations().get(i);
+            if (operation.getType() == OperationType.DELETE_BLOCK && blockId.equals(operation.getBlockId())) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    private static Criteria committed(String pageId) {
+        return Criteria.where("pageId").is(pageId).and("pending").ne(true);
+    }
+
+    private void commit(OperationLogEntry entry) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(entry.getId())),
+            new Update().unset("pending"), OperationLogEntry.class);
+        entry.setPending(null);
+    }
+
+    /**
+     * Settle a pending entry whose writer stopped between claiming the revision and
+     * committing it. Entries younger than the timeout are assumed to be in flight.
+     */
+    private void recoverAbandoned(String pageId, long revision) {
+        Query query = new Query(Criteria.where("pageId").is(pageId).and("revision").is(revision)
+            .and("pending").is(true)
+            .and("createdAt").lt(Instant.now().minusMillis(pendingTimeoutMs)));
+        OperationLogEntry abandoned = mongoTemplate.findOne(query, OperationLogEntry.class);
+        if (abandoned == null) {
+            return;
+        }
+        // A batch's page write sets updatedAt to the entry's createdAt
+        boolean landed = mongoTemplate.exists(new Query(Criteria.where("_id").is(pageId)
+            .and("updatedAt").is(abandoned.getCreatedAt())), Page.class);
+        if (landed) {
+            commit(abandoned);
+        } else {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(abandoned.getId()).and("pending").is(true)),
+                OperationLogEntry.class);
+        }
+        System.out.println("[DEBUG] Recovered abandoned revision " + revision + " of page " + pageId
+            + (landed ? " (committed)" : " (removed)"));
+    }
+
+    private void publish(OperationLogEntry entry) {
+        try {
+            ObjectNode message = objectMapper.createObjectNode()
+                .put("type", "operations")
+                .put("revision", entry.getRevision())
+                .put("userId", entry.getUserId());
+            message.set("operations", objectMapper.valueToTree(entry.getOperations()));
+            presenceService.publish(entry.getPageId(), message);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to publish operations for page " + entry.getPageId() + ": " + e.getMessage());
+        }
+    }
+
+    private void trim(String pageId, long revision) {
+        if (revision % TRIM_EVERY != 0 || revision <= maxLogEntriesPerPage) {
+            return;
+        }
+        mongoTemplate.remove(new Query(Criteria.where("pageId").is(pageId)
+            .and("revision").lte(revision - maxLogEntriesPerPage)), OperationLogEntry.class);
+    }
+
+    private Object lockFor(String pageId) {
+        return locks[Math.floorMod(pageId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
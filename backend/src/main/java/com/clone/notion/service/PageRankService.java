@@ -0,0 +1,418 @@
+package com.clone.notion.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.model.PageLink;
+import com.clone.notion.repository.PageRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Maintains a PageRank score for every page over the PageLink graph and stores
+ * it in Page.pageRank.
+ *
+ * Uses the un-normalized form PR(v) = (1 - d) + d * sum(PR(u) / outDegree(u)),
+ * which does not depend on the number of pages, so pages can be added or removed
+ * without touching every score. A full recompute runs power iteration over
+ * primitive adjacency arrays; in between, link changes reported through
+ * markDirty() are applied by pushing the resulting residuals through the graph,
+ * which only visits the neighbourhood of the changed edges.
+ */
+@Service
+@RequiredArgsConstructor
+public class PageRankService {
+
+    private static final double DAMPING = 0.85;
+    private static final double TELEPORT = 1 - DAMPING;
+    private static final double TOLERANCE = 1e-6;
+    private static final int MAX_ITERATIONS = 100;
+    private static final double WRITE_EPSILON = 1e-4;
+    private static final int WRITE_BATCH_SIZE = 1000;
+    private static final int CURSOR_BATCH_SIZE = 1000;
+    private static final double FULL_RECOMPUTE_DIRTY_RATIO = 0.05;
+    private static final int MAX_RESULTS = 100;
+    private static final int[] NO_EDGES = new int[0];
+
+    private final MongoTemplate mongoTemplate;
+    private final PageRepository pageRepository;
+
+    @Value("${pagerank.enabled:true}")
+    private boolean enabled;
+
+    // Source pages whose outgoing links changed since the last run
+    private final Set<String> dirtySources = ConcurrentHashMap.newKeySet();
+
+    // In-memory graph, only accessed while holding this service's monitor
+    private final Map<String, Integer> index = new HashMap<>();
+    private String[] ids = new String[0];
+    private int[][] out = new int[0][];
+    private double[] rank = new double[0];
+    private boolean[] removed = new boolean[0];
+    private int size;
+    private boolean loaded;
+
+    public void markDirty(String sourcePageId) {
+        if (sourcePageId != null) {
+            dirtySources.add(sourcePageId);
+        }
+    }
+
+    public void markDirty(Collection<String> sourcePageIds) {
+        for (String sourcePageId : sourcePageIds) {
+            markDirty(sourcePageId);
+        }
+    }
+
+    /**
+     * The user's pages with the highest PageRank, most central first.
+     */
+    public List<Page> getMostReferencedPages(String userId, int limit) {
+        int bounded = Math.max(1, Math.min(limit, MAX_RESULTS));
+        return pageRepository.findByUserIdAndPageRankNotNullOrderByPageRankDesc(userId, PageRequest.of(0, bounded));
+    }
+
+    @Scheduled(initialDelayString = "${pagerank.initial-delay-ms:60000}",
+               fixedDelayString = "${pagerank.incremental-interval-ms:60000}")
+    public void scheduledIncrementalUpdate() {
+        if (enabled) {
+            applyIncrementalChanges();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${pagerank.full-interval-ms:21600000}",
+               fixedDelayString = "${pagerank.full-interval-ms:21600000}")
+    public void scheduledFullRecompute() {
+        if (enabled) {
+            recomputeAll();
+        }
+    }
+
+    /**
+     * Rebuild the graph from Mongo and run power iteration, warm-started from the
+     * previous scores. Only scores that moved by more than WRITE_EPSILON are written.
+     */
+    public synchronized void recomputeAll() {
+        long start = System.currentTimeMillis();
+        // Anything marked after this point is picked up by the next incremental run
+        dirtySources.clear();
+
+        Map<String, Integer> newIndex = new HashMap<>();
+        String[] newIds = new String[1024];
+        Query pageQuery = new Query().cursorBatchSize(CURSOR_BATCH_SIZE);
+        pageQuery.fields().include("_id");
+        try (Stream<Page> pages = mongoTemplate.stream(pageQuery, Page.class)) {
+            Iterator<Page> it = pages.iterator();
+            while (it.hasNext()) {
+                String id = it.next().getId();
+                if (newIndex.size() == newIds.length) {
+                    newIds = Arrays.copyOf(newIds, newIds.length * 2);
+                }
+                newIds[newIndex.size()] = id;
+                newIndex.put(id, newIndex.size());
+            }
+        }
+        int n = newIndex.size();
+
+        int[][] newOut = new int[n][];
+        int[] degree = new int[n];
+        Query linkQuery = new Query().cursorBatchSize(CURSOR_BATCH_SIZE);
+        linkQuery.fields().include("sourcePageId").include("targetPageId");
+        try (Stream<PageLink> links = mongoTemplate.stream(linkQuery, PageLink.class)) {
+            Iterator<PageLink> it = links.iterator();
+            while (it.hasNext()) {
+                PageLink link = it.next();
+                Integer u = newIndex.get(link.getSourcePageId());
+                Integer v = newIndex.get(link.getTargetPageId());
+                if (u == null || v == null || u.equals(v)) {
+                    continue;
+                }
+                if (newOut[u] == null) {
+                    newOut[u] = new int[4];
+                } else if (degree[u] == newOut[u].length) {
+                    newOut[u] = Arrays.copyOf(newOut[u], degree[u] * 2);
+                }
+                newOut[u][degree[u]++] = v;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            newOut[u] = newOut[u] == null ? NO_EDGES : distinct(newOut[u], degree[u]);
+        }
+
+        double[] x = new double[n];
+        for (int u = 0; u < n; u++) {
+            Integer previous = loaded ? index.get(newIds[u]) : null;
+            x[u] = previous != null && !removed[previous] ? rank[previous] : 1.0;
+        }
+        int iterations = powerIterate(newOut, x);
+
+        Map<String, Integer> oldIndex = new HashMap<>(index);
+        double[] oldRank = rank;
+        boolean[] oldRemoved = removed;
+        boolean wasLoaded = loaded;
+
+        index.clear();
+        index.putAll(newIndex);
+        ids = Arrays.copyOf(newIds, n);
+        out = newOut;
+        rank = x;
+        removed = new boolean[n];
+        size = n;
+        loaded = true;
+
+        Set<Integer> changed = new HashSet<>();
+        for (int u = 0; u < n; u++) {
+            Integer previous = wasLoaded ? oldIndex.get(ids[u]) : null;
+            if (previous == null || oldRemoved[previous] || Math.abs(oldRank[previous] - rank[u]) > WRITE_EPSILON) {
+                changed.add(u);
+            }
+        }
+        persist(changed);
+
+        System.out.println("[DEBUG] PageRank recomputed for " + n + " pages in " + iterations + " iterations ("
+            + (System.currentTimeMillis() - start) + " ms, " + changed.size() + " scores written)");
+    }
+
+    /**
+     * Apply the link changes reported since the last run. Falls back to a full
+     * recompute if nothing is loaded yet or too much of the graph changed.
+     */
+    public synchronized void applyIncrementalChanges() {
+        if (!loaded) {
+            recomputeAll();
+            return;
+        }
+        if (dirtySources.isEmpty()) {
+            return;
+        }
+
+        Set<String> dirty = new HashSet<>(dirtySources);
+        dirtySources.removeAll(dirty);
+        if (dirty.size() > Math.max(1, size * FULL_RECOMPUTE_DIRTY_RATIO)) {
+            recomputeAll();
+            return;
+        }
+
+        Query existingQuery = Query.query(Criteria.where("_id").in(dirty));
+        existingQuery.fields().include("_id");
+        Set<String> existing = new HashSet<>();
+        for (Page page : mongoTemplate.find(existingQuery, Page.class)) {
+            existing.add(page.getId());
+        }
+
+        Query linkQuery = Query.query(Criteria.where("sourcePageId").in(existing));
+        linkQuery.fields().include("sourcePageId").include("targetPageId");
+        Map<String, Set<String>> targetsBySource = new HashMap<>();
+        for (PageLink link : mongoTemplate.find(linkQuery, PageLink.class)) {
+            if (link.getTargetPageId() != null && !link.getTargetPageId().equals(link.getSourcePageId())) {
+                targetsBySource.computeIfAbsent(link.getSourcePageId(), k -> new HashSet<>()).add(link.getTargetPageId());
+            }
+        }
+
+        // Register new nodes first so the residual vector can be sized once
+        Set<Integer> added = new HashSet<>();
+        for (String source : existing) {
+            addNode(source, added);
+            for (String target : targetsBySource.getOrDefault(source, Set.of())) {
+                addNode(target, added);
+            }
+        }
+
+        double[] residual = new double[size];
+        for (int u : added) {
+            residual[u] += TELEPORT;
+        }
+
+        for (String source : dirty) {
+            Integer u = index.get(source);
+            if (u == null || removed[u]) {
+                continue;
+            }
+            int[] before = out[u];
+            int[] after;
+            if (existing.contains(source)) {
+                Set<String> targets = targetsBySource.getOrDefault(source, Set.of());
+                after = new int[targets.size()];
+                int i = 0;
+                for (String target : targets) {
+                    after[i++] = index.get(target);
+                }
+                Arrays.sort(after);
+            } else {
+                // Page was deleted: withdraw its contribution and drop it from the graph
+                after = NO_EDGES;
+                removed[u] = true;
+            }
+            if (Arrays.equals(before, after)) {
+                continue;
+            }
+            for (int v : before) {
+                residual[v] -= DAMPING * rank[u] / before.length;
+            }
+            for (int v : after) {
+                residual[v] += DAMPING * rank[u] / after.length;
+            }
+            out[u] = after;
+            if (removed[u]) {
+                rank[u] = 0;
+                residual[u] = 0;
+            }
+        }
+
+        Set<Integer> touched = push(residual);
+        if (touched == null) {
+            recomputeAll();
+            return;
+        }
+        persist(touched);
+
+        System.out.println("[DEBUG] PageRank incrementally updated for " + dirty.size() + " changed pages, "
+            + touched.size() + " scores adjusted");
+    }
+
+    private void addNode(String id, Set<Integer> added) {
+        if (index.containsKey(id)) {
+            return;
+        }
+        if (size == ids.length) {
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            out = Arrays.copyOf(out, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+        }
+        ids[size] = id;
+        out[size] = NO_EDGES;
+        rank[size] = 0;
+        index.put(id, size);
+        added.add(size);
+        size++;
+    }
+
+    /**
+     * Power iteration over the given adjacency, starting from and updating x in place.
+     * Returns the number of iterations run.
+     */
+    private static int powerIterate(int[][] adjacency, double[] x) {
+        int n = x.length;
+        double[] next = new double[n];
+        int iteration = 0;
+        while (iteration < MAX_ITERATIONS) {
+            iteration++;
+            Arrays.fill(next, TELEPORT);
+            for (int u = 0; u < n; u++) {
+                int[] targets = adjacency[u];
+                if (targets.length == 0) {
+                    continue;
+                }
+                double share = DAMPING * x[u] / targets.length;
+                for (int v : targets) {
+                    next[v] += share;
+                }
+            }
+            double delta = 0;
+            for (int u = 0; u < n; u++) {
+                delta += Math.abs(next[u] - x[u]);
+            }
+            System.arraycopy(next, 0, x, 0, n);
+            if (delta < TOLERANCE * Math.max(1, n)) {
+                break;
+            }
+        }
+        return iteration;
+    }
+
+    /**
+     * Push residuals until every one is below TOLERANCE. Returns the nodes whose
+     * score changed, or null if the push budget was exceeded.
+     */
+    private Set<Integer> push(double[] residual) {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[size];
+        for (int u = 0; u < size; u++) {
+            if (Math.abs(residual[u]) > TOLERANCE && !removed[u]) {
+                queue.add(u);
+                queued[u] = true;
+            }
+        }
+
+        Set<Integer> touched = new HashSet<>();
+        long budget = 50L * size + 1000;
+        while (!queue.isEmpty()) {
+            if (--budget < 0) {
+                return null;
+            }
+            int u = queue.poll();
+            queued[u] = false;
+            double r = residual[u];
+            residual[u] = 0;
+            rank[u] += r;
+            touched.add(u);
+
+            int[] targets = out[u];
+            if (targets.length == 0) {
+                continue;
+            }
+            double share = DAMPING * r / targets.length;
+            for (int v : targets) {
+                residual[v] += share;
+                if (!queued[v] && !removed[v] && Math.abs(residual[v]) > TOLERANCE) {
+                    queue.add(v);
+                    queued[v] = true;
+                }
+            }
+        }
+        return touched;
+    }
+
+    private void persist(Collection<Integer> nodes) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Page.class);
+        int pending = 0;
+        for (int u : nodes) {
+            if (removed[u]) {
+                continue;
+            }
+            ops.updateOne(Query.query(Criteria.where("_id").is(ids[u])), new Update().set("pageRank", rank[u]));
+            if (++pending == WRITE_BATCH_SIZE) {
+                ops.execute();
+                ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Page.class);
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            ops.execute();
+        }
+    }
+
+    private static int[] distinct(int[] values, int length) {
+        int[] sorted = Arrays.copyOf(values, length);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+    }
+}
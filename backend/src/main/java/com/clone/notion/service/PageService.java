@@ -1,10 +1,22 @@
 package com.clone.notion.service;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.clone.notion.model.Block;
 import com.clone.notion.model.Page;
 import com.clone.notion.repository.PageRepository;
 
@@ -16,6 +28,11 @@ public class PageService {
 
     private final PageRepository pageRepository;
     private final PageLinkService pageLinkService;
+    private final PageShareService pageShareService;
+    private final PageViewService pageViewService;
+    private final PageOperationService pageOperationService;
+    private final PageVersionService pageVersionService;
+    private final MongoTemplate mongoTemplate;
 
     public List<Page> findAllByUserId(String userId) {
         return pageRepository.findByUserIdOrderByParentIdAscOrderAsc(userId);
@@ -36,7 +53,12 @@ public class PageService {
             page.setOrder(getNextOrderForParent(userId, page.getParentId()));
         }
         
-        return pageRepository.save(page);
+        Page savedPage = pageRepository.save(page);
+        if (!savedPage.getBlocks().isEmpty()) {
+            syncLinks(savedPage, null);
+        }
+        pageVersionService.record(savedPage.getId(), userId, savedPage.getTitle(), savedPage.getBlocks());
+        return savedPage;
     }
 
     public Page update(String id, Page updated, String userId) {
@@ -61,7 +83,9 @@ public class PageService {
                     existing.setTitle(updated.getTitle());
                 }
                 
+                boolean parentChanged = false;
                 if (updated.getParentId() != null) {
+                    parentChanged = !updated.getParentId().equals(existing.getParentId());
                     existing.setParentId(updated.getParentId());
                 }
                 
@@ -69,7 +93,9 @@ public class PageService {
                     existing.setIcon(updated.getIcon());
                 }
                 
+                List<Block> previousBlocks = null;
                 if (updated.getBlocks() != null) {
+                    previousBlocks = new ArrayList<>(existing.getBlocks());
                     existing.setBlocks(updated.getBlocks());
                 }
                 
@@ -81,6 +107,18 @@ public class PageService {
                 
                 try {
                     Page savedPage = pageRepository.save(existing);
+                    if (previousBlocks != null) {
+                        syncLinks(savedPage, previousBlocks);
+                    }
+                    if (parentChanged) {
+                        pageShareService.invalidatePageTree(id);
+                    } else {
+                        pageShareService.invalidateSharedPage(id);
+                    }
+                    if (previousBlocks != null || updated.getTitle() != null) {
+                        pageOperationService.recordReplace(id, userId);
+                        pageVersionService.record(id, userId, savedPage.getTitle(), savedPage.getBlocks());
+                    }
                     System.out.println("[DEBUG] Page updated successfully: " + savedPage);
                     return savedPage;
                 } catch (Exception e) {
@@ -116,6 +154,10 @@ public class PageService {
             pageLinkService.removeAllLinksForPage(id);
             
             pageRepository.delete(existing);
+            pageShareService.invalidatePageTree(id);
+            pageViewService.deleteStatsForPage(id);
+            pageOperationService.deleteLogForPage(id);
+            pageVersionService.deleteVersionsForPage(id);
             System.out.println("Page deleted successfully");
             return true;
         }).orElse(false);
@@ -139,24 +181,126 @@ public class PageService {
             if (existing.getUserId() == null || !existing.getUserId().equals(userId)) {
                 return null;
             }
-            // Sync content from Convex while preserving metadata
-            existing.setTitle(convexPage.getTitle());
-            existing.setBlocks(convexPage.getBlocks());
-            existing.setUpdatedAt(Instant.now());
-            return pageRepository.save(existing);
+            return saveSyncedContent(existing, convexPage.getTitle(), convexPage.getBlocks(), userId);
         }).orElse(null);
     }
 
+    /**
+     * The page's updatedAt, or null if it does not exist. Content for the sync
+     * buffer is submitted against this version of the page.
+     */
+    public Instant findUpdatedAt(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("updatedAt");
+        Page page = mongoTemplate.findOne(query, Page.class);
+        return page == null ? null : page.getUpdatedAt();
+    }
+
+    /**
+     * Write content flushed from the sync buffer. Access was checked when it was submitted.
+     * The content is only written if the page is still at baseUpdatedAt, the version it was
+     * submitted against; returns null if the page is gone or has been written since.
+     */
+    public Page writeSyncedContent(String id, String title, List<Block> blocks, String userId, Instant baseUpdatedAt) {
+        Page existing = pageRepository.findById(id).orElse(null);
+        if (existing == null || !Objects.equals(existing.getUpdatedAt(), baseUpdatedAt)) {
+            return null;
+        }
+        List<Block> previousBlocks = new ArrayList<>(existing.getBlocks());
+        // Millisecond precision, as stored, so the buffer can compare against it
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Query unchanged = new Query(Criteria.where("_id").is(id).and("updatedAt").is(baseUpdatedAt));
+        Update update = new Update()
+            .set("title", title)
+            .set("blocks", blocks)
+            .unset("packedBlocks")
+            .unset("packedText")
+            .set("updatedAt", now);
+        if (mongoTemplate.updateFirst(unchanged, update, Page.class).getModifiedCount() == 0) {
+            return null;
+        }
+        existing.setTitle(title);
+        existing.setBlocks(blocks);
+        existing.setUpdatedAt(now);
+        afterSyncedContentSaved(existing, previousBlocks, userId);
+        return existing;
+    }
+
+    private Page saveSyncedContent(Page existing, String title, List<Block> blocks, String userId) {
+        // Sync content from Convex while preserving metadata
+        List<Block> previousBlocks = new ArrayList<>(existing.getBlocks());
+        existing.setTitle(title);
+        existing.setBlocks(blocks);
+        existing.setUpdatedAt(Instant.now());
+        Page savedPage = pageRepository.save(existing);
+        afterSyncedContentSaved(savedPage, previousBlocks, userId);
+        return savedPage;
+    }
+
+    private void afterSyncedContentSaved(Page savedPage, List<Block> previousBlocks, String userId) {
+        syncLinks(savedPage, previousBlocks);
+        pageShareService.invalidateSharedPage(savedPage.getId());
+        pageOperationService.recordReplace(savedPage.getId(), userId);
+        pageVersionService.record(savedPage.getId(), userId, savedPage.getTitle(), savedPage.getBlocks());
+    }
+
+    /**
+     * Keep PageLink rows in step with the link markup in the page's blocks.
+     * Link extraction failures are logged and never fail the content save.
+     */
+    private void syncLinks(Page page, List<Block> previousBlocks) {
+        try {
+            pageLinkService.syncLinksFromBlocks(page, previousBlocks);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to sync links for page " + page.getId() + ": " + e.getMessage());
+        }
+    }
+
     public List<Page> searchPages(String query, String userId) {
         System.out.println("[DEBUG] searchPages called with query: '" + query + "', userId: " + userId);
         if (query == null || query.trim().isEmpty()) {
             return pageRepository.findByUserIdOrderByParentIdAscOrderAsc(userId);
         }
-        List<Page> results = pageRepository.searchByUserIdAndContent(userId, query.trim());
+        String term = query.trim();
+        List<Page> results = pageRepository.searchByUserIdAndContent(userId, term);
+        // Rank by how well the title matches, then by link-graph centrality; pages without a score go last
+        Pattern pattern = compileSearchPattern(term);
+        results.sort(Comparator.<Page>comparingInt(page -> titleMatchRank(page.getTitle(), term, pattern))
+            .thenComparing(Page::getPageRank, Comparator.nullsLast(Comparator.reverseOrder())));
         System.out.println("[DEBUG] searchPages found " + results.size() + " results");
         return results;
     }
 
+    /**
+     * 0 for a title equal to the search term, 1 for a title starting with it,
+     * 2 for any other title match, 3 when only the content matched.
+     */
+    private static int titleMatchRank(String title, String term, Pattern pattern) {
+        if (title == null) {
+            return 3;
+        }
+        String normalized = title.trim().toLowerCase(Locale.ROOT);
+        String normalizedTerm = term.toLowerCase(Locale.ROOT);
+        if (normalized.equals(normalizedTerm)) {
+            return 0;
+        }
+        if (normalized.startsWith(normalizedTerm)) {
+            return 1;
+        }
+        return pattern.matcher(title).find() ? 2 : 3;
+    }
+
+    /**
+     * The term as the case-insensitive regex the repository query uses, or as literal text if it is not valid regex.
+     */
+    private static Pattern compileSearchPattern(String term) {
+        try {
+            return Pattern.compile(term, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            return Pattern.compile(Pattern.quote(term), Pattern.CASE_INSENSITIVE);
+        }
+    }
+
     public Page updateTitle(String id, String title, String userId) {
         return pageRepository.findById(id).map(existing -> {
             if (existing.getUserId() == null || !existing.getUserId().equals(userId)) {
@@ -164,7 +308,11 @@ public class PageService {
             }
             existing.setTitle(title);
             existing.setUpdatedAt(Instant.now());
-            return pageRepository.save(existing);
+            Page savedPage = pageRepository.save(existing);
+            pageShareService.invalidateSharedPage(id);
+            pageOperationService.recordReplace(id, userId);
+            pageVersionService.record(id, userId, title, savedPage.getBlocks());
+            return savedPage;
         }).orElse(null);
     }
 
@@ -175,7 +323,9 @@ public class PageService {
             }
             existing.setIcon(icon);
             existing.setUpdatedAt(Instant.now());
-            return pageRepository.save(existing);
+            Page savedPage = pageRepository.save(existing);
+            pageShareService.invalidateSharedPage(id);
+            return savedPage;
         }).orElse(null);
     }
 
@@ -219,7 +369,10 @@ public class PageService {
                 reorderSiblingsAfterInsert(userId, newParentId, newOrder);
             }
             
-            return pageRepository.save(existing);
+            Page moved = pageRepository.save(existing);
+            // Inherited permissions of the moved subtree must be re-resolved
+            pageShareService.invalidatePageTree(pageId);
+            return moved;
         }).orElse(null);
     }
 
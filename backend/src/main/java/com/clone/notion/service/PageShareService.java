@@ -1,14 +1,36 @@
 package com.clone.notion.service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import com.clone.notion.model.Page;
 import com.clone.notion.model.PageShare;
 import com.clone.notion.model.Permission;
+import com.clone.notion.model.User;
+import com.clone.notion.payload.response.BulkShareResponse;
+import com.clone.notion.payload.response.SharedWithMeResponse;
+import com.clone.notion.repository.PageRepository;
 import com.clone.notion.repository.PageShareRepository;
 import com.clone.notion.repository.UserRepository;
 
@@ -18,8 +40,17 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class PageShareService {
 
+    private static final int MAX_BULK_SHARE_PAIRS = 5000;
+    private static final int MAX_SHARED_WITH_ME_PAGE_SIZE = 100;
+
     private final PageShareRepository pageShareRepository;
     private final UserRepository userRepository;
+    private final PageRepository pageRepository;
+    private final PermissionCache permissionCache;
+    private final PageAncestryCache pageAncestryCache;
+    private final ShareExpiryService shareExpiryService;
+    private final MongoTemplate mongoTemplate;
+    private final PublicShareLinkCache publicShareLinkCache;
 
     public PageShare sharePageWithUser(String pageId, String sharedByUserId, String sharedWithUserId, String permission) {
         // Validate permission
@@ -37,7 +68,9 @@ public class PageShareService {
             PageShare share = existingShare.get();
             share.setPermission(permission);
             share.setUpdatedAt(Instant.now());
-            return pageShareRepository.save(share);
+            PageShare saved = pageShareRepository.save(share);
+            permissionCache.invalidate(pageId, sharedWithUserId);
+            return saved;
         }
         
         // Create new share
@@ -52,7 +85,156 @@ public class PageShareService {
             .isPublic(false)
             .build();
         
-        return pageShareRepository.save(share);
+        PageShare saved = pageShareRepository.save(share);
+        permissionCache.invalidate(pageId, sharedWithUserId);
+        return saved;
+    }
+
+    /**
+     * Share every page with every user. The caller's right to share, users and
+     * existing shares are each checked with a few queries however many pages
+     * there are, and all creates and permission changes go out as one unordered
+     * bulk write. Pages the caller cannot administer and unknown users
+     * are reported as failed pairs rather than failing the whole request.
+     */
+    public BulkShareResponse sharePagesWithUsers(List<String> pageIds, List<String> userIds, String sharedByUserId, String permission) {
+        // Validate permission
+        Permission.valueOf(permission.toUpperCase());
+
+        Set<String> pages = new LinkedHashSet<>(pageIds);
+        Set<String> users = new LinkedHashSet<>(userIds);
+        pages.remove(null);
+        users.remove(null);
+        if (pages.isEmpty() || users.isEmpty()) {
+            throw new IllegalArgumentException("pageIds and userIds are required");
+        }
+        if ((long) pages.size() * users.size() > MAX_BULK_SHARE_PAIRS) {
+            throw new IllegalArgumentException("Too many page/user pairs (max " + MAX_BULK_SHARE_PAIRS + ")");
+        }
+
+        Set<String> sharablePages = findAdministrablePages(pages, sharedByUserId);
+        Set<String> existingUsers = userRepository.findIdsByIdIn(users).stream()
+            .map(User::getId)
+            .collect(Collectors.toSet());
+
+        Map<String, PageShare> existingShares = new HashMap<>();
+        if (!sharablePages.isEmpty() && !existingUsers.isEmpty()) {
+            for (PageShare share : pageShareRepository.findActiveSharesForPagesAndUsers(sharablePages, existingUsers)) {
+                existingShares.put(pairKey(share.getPageId(), share.getSharedWithUserId()), share);
+            }
+        }
+
+        Instant now = Instant.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PageShare.class);
+        List<BulkShareResponse.PairResult> results = new ArrayList<>();
+        // Results backed by a bulk operation, in operation order
+        List<BulkShareResponse.PairResult> written = new ArrayList<>();
+
+        for (String pageId : pages) {
+            for (String userId : users) {
+                BulkShareResponse.PairResult result = BulkShareResponse.PairResult.builder()
+                    .pageId(pageId)
+                    .userId(userId)
+                    .build();
+                results.add(result);
+
+                if (!sharablePages.contains(pageId)) {
+                    result.setStatus("failed");
+                    result.setMessage("Not authorized to share this page");
+                    continue;
+                }
+                if (!existingUsers.contains(userId)) {
+                    result.setStatus("failed");
+                    result.setMessage("User not found");
+                    continue;
+                }
+
+                PageShare existing = existingShares.get(pairKey(pageId, userId));
+                if (existing != null) {
+                    if (permission.equals(existing.getPermission())) {
+                        result.setStatus("unchanged");
+                        continue;
+                    }
+                    ops.updateOne(Query.query(Criteria.where("_id").is(existing.getId())),
+                        new Update().set("permission", permission).set("updatedAt", now));
+                    result.setStatus("updated");
+                } else {
+                    // Upsert so a share created concurrently for the same pair is updated, not duplicated
+                    ops.upsert(Query.query(Criteria.where("pageId").is(pageId)
+                            .and("sharedWithUserId").is(userId)
+                            .and("active").is(true)),
+                        new Update()
+                            .set("permission", permission)
+                            .set("updatedAt", now)
+                            .setOnInsert("sharedByUserId", sharedByUserId)
+                            .setOnInsert("createdAt", now)
+                            .setOnInsert("isPublic", false));
+                    result.setStatus("created");
+                }
+                written.add(result);
+            }
+        }
+
+        if (!written.isEmpty()) {
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> {
+                    BulkShareResponse.PairResult result = written.get(error.getIndex());
+                    result.setStatus("failed");
+                    result.setMessage(error.getMessage());
+                });
+            }
+            written.stream()
+                .filter(result -> !"failed".equals(result.getStatus()))
+                .map(BulkShareResponse.PairResult::getUserId)
+                .distinct()
+                .forEach(permissionCache::invalidateUser);
+        }
+
+        Map<String, Long> counts = results.stream()
+            .collect(Collectors.groupingBy(BulkShareResponse.PairResult::getStatus, Collectors.counting()));
+        return BulkShareResponse.builder()
+            .created(counts.getOrDefault("created", 0L).intValue())
+            .updated(counts.getOrDefault("updated", 0L).intValue())
+            .unchanged(counts.getOrDefault("unchanged", 0L).intValue())
+            .failed(counts.getOrDefault("failed", 0L).intValue())
+            .results(results)
+            .build();
+    }
+
+    /**
+     * The pages the user may administer, as hasAccess(page, user, "admin") would decide for each:
+     * one query for the pages they own, an ancestor walk of one query per tree level, and one
+     * query for the shares on the rest and their ancestors.
+     */
+    private Set<String> findAdministrablePages(Set<String> pageIds, String userId) {
+        Set<String> allowed = new HashSet<>();
+        pageRepository.findIdsByIdInAndUserId(pageIds, userId).forEach(page -> allowed.add(page.getId()));
+
+        Set<String> rest = new HashSet<>(pageIds);
+        rest.removeAll(allowed);
+        if (rest.isEmpty()) {
+            return allowed;
+        }
+        Map<String, List<String>> ancestors = pageAncestryCache.getAncestors(rest);
+        Set<String> path = new HashSet<>(rest);
+        ancestors.values().forEach(path::addAll);
+
+        Instant now = Instant.now();
+        Set<String> adminOn = new HashSet<>();
+        for (PageShare share : pageShareRepository.findActiveSharesForPagesAndUser(path, userId)) {
+            boolean expired = share.getExpiresAt() != null && !share.getExpiresAt().isAfter(now);
+            if (!expired && Permission.fromValue(share.getPermission()).allows(Permission.ADMIN)) {
+                adminOn.add(share.getPageId());
+            }
+        }
+        for (String pageId : rest) {
+            if (adminOn.contains(pageId) || ancestors.get(pageId).stream().anyMatch(adminOn::contains)) {
+                allowed.add(pageId);
+            }
+        }
+        return allowed;
     }
 
     public PageShare createPublicShare(String pageId, String sharedByUserId, String permission, Instant expiresAt) {
@@ -75,7 +257,11 @@ public class PageShareService {
             .isPublic(true)
             .build();
         
-        return pageShareRepository.save(share);
+        PageShare saved = pageShareRepository.save(share);
+        permissionCache.invalidatePage(pageId);
+        publicShareLinkCache.add(shareLink);
+        shareExpiryService.schedule(saved);
+        return saved;
     }
 
     public List<PageShare> getSharesForPage(String pageId) {
@@ -90,64 +276,191 @@ public class PageShareService {
         return pageShareRepository.findBySharedWithUserIdAndActiveTrue(userId);
     }
 
+    /**
+     * Pages shared with the user, most recently updated first, with the page title,
+     * icon and owner username joined in. One aggregation: the pages and users
+     * lookups project only the fields shown, and a facet returns the requested
+     * page of items together with the total count.
+     */
+    public SharedWithMeResponse getSharedWithMe(String userId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SHARED_WITH_ME_PAGE_SIZE));
+        int pageNumber = Math.max(0, page);
+
+        Criteria notExpired = new Criteria().orOperator(
+            Criteria.where("expiresAt").is(null),
+            Criteria.where("expiresAt").gt(Instant.now()));
+
+        // Stages after the lookups are plain documents: the joined fields are not PageShare properties
+        List<Document> items = List.of(
+            new Document("$sort", new Document("page.updatedAt", -1).append("_id", -1)),
+            new Document("$skip", (long) pageNumber * pageSize),
+            new Document("$limit", pageSize),
+            new Document("$addFields", new Document("ownerOid", toObjectId("$page.userId"))),
+            lookupById("users", "$ownerOid", new Document("username", 1), "owner"),
+            new Document("$project", new Document("_id", 0)
+                .append("shareId", new Document("$toString", "$_id"))
+                .append("pageId", 1)
+                .append("permission", 1)
+                .append("sharedByUserId", 1)
+                .append("sharedAt", "$createdAt")
+                .append("expiresAt", 1)
+                .append("title", "$page.title")
+                .append("icon", "$page.icon")
+                .append("updatedAt", "$page.updatedAt")
+                .append("ownerId", "$page.userId")
+                .append("ownerUsername", new Document("$arrayElemAt", List.of("$owner.username", 0))))
+        );
+
+        List<AggregationOperation> stages = List.of(
+            Aggregation.match(new Criteria().andOperator(
+                Criteria.where("sharedWithUserId").is(userId).and("active").is(true),
+                notExpired)),
+            // Page ids are stored as strings on shares but as ObjectIds on pages
+            context -> new Document("$addFields", new Document("pageOid", toObjectId("$pageId"))),
+            context -> lookupById("pages", "$pageOid",
+                new Document("title", 1).append("icon", 1).append("userId", 1).append("updatedAt", 1), "page"),
+            // Drops shares of deleted pages
+            context -> new Document("$unwind", "$page"),
+            context -> new Document("$facet", new Document()
+                .append("items", items)
+                .append("total", List.of(new Document("$count", "count"))))
+        );
+        Aggregation aggregation = Aggregation.newAggregation(stages);
+
+        Document result = mongoTemplate.aggregate(aggregation, PageShare.class, Document.class).getUniqueMappedResult();
+
+        List<SharedWithMeResponse.Item> itemList = new ArrayList<>();
+        long total = 0;
+        if (result != null) {
+            for (Document doc : result.getList("items", Document.class)) {
+                itemList.add(SharedWithMeResponse.Item.builder()
+                    .shareId(doc.getString("shareId"))
+                    .pageId(doc.getString("pageId"))
+                    .title(doc.getString("title"))
+                    .icon(doc.getString("icon"))
+                    .ownerId(doc.getString("ownerId"))
+                    .ownerUsername(doc.getString("ownerUsername"))
+                    .permission(doc.getString("permission"))
+                    .sharedByUserId(doc.getString("sharedByUserId"))
+                    .sharedAt(toInstant(doc.getDate("sharedAt")))
+                    .expiresAt(toInstant(doc.getDate("expiresAt")))
+                    .updatedAt(toInstant(doc.getDate("updatedAt")))
+                    .build());
+            }
+            List<Document> totals = result.getList("total", Document.class);
+            if (!totals.isEmpty()) {
+                total = ((Number) totals.get(0).get("count")).longValue();
+            }
+        }
+
+        return SharedWithMeResponse.builder()
+            .items(itemList)
+            .total(total)
+            .page(pageNumber)
+            .size(pageSize)
+            .build();
+    }
+
+    private static Document toObjectId(String fieldRef) {
+        // Ids that are not valid ObjectIds are kept as strings
+        return new Document("$convert", new Document("input", fieldRef)
+            .append("to", "objectId")
+            .append("onError", fieldRef)
+            .append("onNull", null));
+    }
+
+    private static Document lookupById(String from, String localRef, Document projection, String as) {
+        return new Document("$lookup", new Document("from", from)
+            .append("let", new Document("id", localRef))
+            .append("pipeline", List.of(
+                new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id", "$$id")))),
+                new Document("$project", projection)))
+            .append("as", as));
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+
     public Optional<PageShare> getShareByLink(String shareLink) {
-        return pageShareRepository.findByShareLinkAndActiveTrue(shareLink);
+        return publicShareLinkCache.resolve(shareLink).map(PublicShareLinkCache.Snapshot::share);
+    }
+
+    /**
+     * The share and the page behind a public link, served from the link cache.
+     */
+    public Optional<PublicShareLinkCache.Snapshot> resolveShareLink(String shareLink) {
+        return publicShareLinkCache.resolve(shareLink);
+    }
+
+    public Map<String, Object> getShareLinkCacheStats() {
+        return publicShareLinkCache.getStats();
     }
 
     public boolean hasAccess(String pageId, String userId, String requiredPermission) {
-        // Check if user owns the page (implicit full access)
-        // This would need to be implemented based on your page ownership logic
-        
-        // Check explicit shares
-        Optional<PageShare> share = pageShareRepository.findByPageIdAndSharedWithUserIdAndActiveTrue(pageId, userId);
-        if (share.isPresent()) {
-            PageShare pageShare = share.get();
-            
-            // Check if share is expired
-            if (pageShare.getExpiresAt() != null && pageShare.getExpiresAt().isBefore(Instant.now())) {
-                return false;
-            }
-            
-            Permission userPermission = Permission.fromValue(pageShare.getPermission());
-            Permission required = Permission.fromValue(requiredPermission);
-            
-            switch (required) {
-                case VIEW:
-                    return userPermission.canView();
-                case COMMENT:
-                    return userPermission.canComment();
-                case EDIT:
-                    return userPermission.canEdit();
-                case ADMIN:
-                    return userPermission.canDelete();
-                default:
-                    return false;
-            }
+        Permission required = Permission.fromValue(requiredPermission);
+        return getEffectivePermission(pageId, userId).allows(required);
+    }
+
+    /**
+     * Effective permission of a user on a page: ownership, or the best direct or
+     * public share on the page or any of its ancestors (shares are inherited down
+     * the page tree). Served from the permission cache.
+     */
+    public PermissionCache.Decision getEffectivePermission(String pageId, String userId) {
+        return permissionCache.get(pageId, userId, () -> resolvePermission(pageId, userId));
+    }
+
+    private PermissionCache.Decision resolvePermission(String pageId, String userId) {
+        List<String> path = new ArrayList<>();
+        path.add(pageId);
+        path.addAll(pageAncestryCache.getAncestors(pageId));
+
+        // Owners have implicit full access
+        Optional<Page> owner = pageRepository.findOwnerById(pageId);
+        if (userId != null && owner.isPresent() && userId.equals(owner.get().getUserId())) {
+            return new PermissionCache.Decision(Permission.ADMIN, null, path);
         }
-        
-        // Check public shares
-        List<PageShare> publicShares = pageShareRepository.findByPageIdAndIsPublicTrueAndActiveTrue(pageId);
-        for (PageShare publicShare : publicShares) {
-            if (publicShare.getExpiresAt() == null || publicShare.getExpiresAt().isAfter(Instant.now())) {
-                Permission userPermission = Permission.fromValue(publicShare.getPermission());
-                Permission required = Permission.fromValue(requiredPermission);
-                
-                switch (required) {
-                    case VIEW:
-                        return userPermission.canView();
-                    case COMMENT:
-                        return userPermission.canComment();
-                    case EDIT:
-                        return userPermission.canEdit();
-                    case ADMIN:
-                        return userPermission.canDelete();
-                    default:
-                        return false;
+
+        // One query covers the page and every ancestor
+        List<PageShare> candidates = pageShareRepository.findActiveSharesForPagesAndUser(path, userId);
+
+        Instant now = Instant.now();
+        Permission best = null;
+        Instant expiresAt = null;
+        for (PageShare share : candidates) {
+            if (share.getExpiresAt() != null) {
+                if (!share.getExpiresAt().isAfter(now)) {
+                    continue;
+                }
+                // The decision must be re-evaluated when any contributing share expires
+                if (expiresAt == null || share.getExpiresAt().isBefore(expiresAt)) {
+                    expiresAt = share.getExpiresAt();
                 }
             }
+            Permission permission = Permission.fromValue(share.getPermission());
+            if (best == null || permission.ordinal() > best.ordinal()) {
+                best = permission;
+            }
         }
-        
-        return false;
+        return new PermissionCache.Decision(best, expiresAt, path);
+    }
+
+    /**
+     * Called when a page moves or is deleted: cached ancestor chains and permission
+     * decisions of the page and its descendants no longer hold.
+     */
+    public void invalidatePageTree(String pageId) {
+        pageAncestryCache.invalidate(pageId);
+        permissionCache.invalidatePage(pageId);
+        publicShareLinkCache.invalidatePage(pageId);
+    }
+
+    /**
+     * Called when a page's content changes so public links stop serving the old snapshot.
+     */
+    public void invalidateSharedPage(String pageId) {
+        publicShareLinkCache.invalidatePage(pageId);
     }
 
     public void revokeShare(String pageId, String sharedWithUserId, String revokedByUserId) {
@@ -163,6 +476,7 @@ public class PageShareService {
             pageShare.setActive(false);
             pageShare.setUpdatedAt(Instant.now());
             pageShareRepository.save(pageShare);
+            permissionCache.invalidate(pageId, sharedWithUserId);
         }
     }
 
@@ -173,8 +487,10 @@ public class PageShareService {
                 share.setActive(false);
                 share.setUpdatedAt(Instant.now());
                 pageShareRepository.save(share);
+                publicShareLinkCache.invalidateLink(share.getShareLink());
             }
         }
+        permissionCache.invalidatePage(pageId);
     }
 
     public void updateSharePermission(String pageId, String sharedWithUserId, String newPermission, String updatedByUserId) {
@@ -193,6 +509,7 @@ public class PageShareService {
             pageShare.setPermission(newPermission);
             pageShare.setUpdatedAt(Instant.now());
             pageShareRepository.save(pageShare);
+            permissionCache.invalidate(pageId, sharedWithUserId);
         }
     }
 
@@ -200,25 +517,33 @@ public class PageShareService {
         return pageShareRepository.findExpiredShares(Instant.now());
     }
 
-    public void cleanupExpiredShares() {
-        List<PageShare> expiredShares = getExpiredShares();
-        for (PageShare share : expiredShares) {
-            share.setActive(false);
-            share.setUpdatedAt(Instant.now());
-            pageShareRepository.save(share);
-        }
+    /**
+     * Deactivate all shares past their expiresAt. Normally done automatically by
+     * ShareExpiryService; returns the number of shares deactivated.
+     */
+    public long cleanupExpiredShares() {
+        return shareExpiryService.deactivateExpiredShares();
     }
 
     public void deleteAllSharesForPage(String pageId) {
         pageShareRepository.deleteByPageId(pageId);
+        permissionCache.invalidatePage(pageId);
+        publicShareLinkCache.invalidatePage(pageId);
     }
 
     public void deleteAllSharesByUser(String userId) {
         pageShareRepository.deleteBySharedByUserId(userId);
+        permissionCache.invalidateAll();
+        publicShareLinkCache.invalidateAll();
     }
 
     public void deleteAllSharesWithUser(String userId) {
         pageShareRepository.deleteBySharedWithUserId(userId);
+        permissionCache.invalidateUser(userId);
+    }
+
+    private static String pairKey(String pageId, String userId) {
+        return pageId + "|" + userId;
     }
 
     private String generateShareLink() {
@@ -0,0 +1,471 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.PageVersion;
+import com.clone.notion.payload.response.PageVersionResponse;
+import com.clone.notion.payload.response.PageVersionSummary;
+import com.clone.notion.payload.response.VersionDiffResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Page version history stored as periodic snapshots plus block-level deltas.
+ *
+ * Every content save records a version. Versions 1, 1 + snapshot-every, ...
+ * (and any version that rewrites most of the page) store the full block list,
+ * packed with BlockCodec; the rest store only removed ids, changed blocks and,
+ * when it cannot be inferred, the new order. Any version is rebuilt from the
+ * nearest snapshot at or before it, so a read replays fewer than
+ * snapshot-every deltas.
+ *
+ * Saves by the same user within coalesce-ms fold into their latest version,
+ * so autosave does not flood the history. Each page keeps at most
+ * max-per-page versions, plus the deltas back to the snapshot they need.
+ * The latest state of recently saved pages is cached, so recording normally
+ * costs a lookup of the latest version's number and updatedAt (to catch writes
+ * from other instances) plus one write. Both writes are conditional: a
+ * version number taken or a version rewritten elsewhere makes the save reload
+ * the head and try again.
+ */
+@Service
+public class PageVersionService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_LIST_LIMIT = 100;
+    private static final int PRUNE_EVERY = 10;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private record State(String title, List<Block> blocks) {
+    }
+
+    /**
+     * The latest version of a page with its content, and the content before it when known.
+     */
+    private record Head(PageVersion version, State state, State base) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int snapshotEvery;
+    private final int maxVersionsPerPage;
+    private final long coalesceMillis;
+    private final int maxCachedHeads;
+
+    private final LinkedHashMap<String, Head> heads;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public PageVersionService(MongoTemplate mongoTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${versions.snapshot-every:20}") int snapshotEvery,
+                              @Value("${versions.max-per-page:200}") int maxVersionsPerPage,
+                              @Value("${versions.coalesce-ms:60000}") long coalesceMillis,
+                              @Value("${versions.head-cache-max-entries:1000}") int maxCachedHeads) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.maxVersionsPerPage = Math.max(1, maxVersionsPerPage);
+        this.coalesceMillis = coalesceMillis;
+        this.maxCachedHeads = maxCachedHeads;
+        this.heads = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Head> eldest) {
+                return size() > PageVersionService.this.maxCachedHeads;
+            }
+        };
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Record the page's content after a save. Failures are logged; the save itself has already happened.
+     */
+    public void record(String pageId, String userId, String title, List<?> blocks) {
+        try {
+            State current = new State(title, normalize(blocks));
+            synchronized (lockFor(pageId)) {
+                for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                    if (tryRecord(pageId, userId, current)) {
+                        return;
+                    }
+                    // Another instance wrote this page's history since the head was read
+                    evict(pageId);
+                }
+            }
+            System.out.println("[ERROR] Gave up recording version for page " + pageId + " after concurrent writes");
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to record version for page " + pageId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns false if another instance changed the history first.
+     */
+    private boolean tryRecord(String pageId, String userId, State current) {
+        Head head = loadHead(pageId);
+        if (head != null && sameState(head.state(), current)) {
+            return true;
+        }
+
+        // Stored with millisecond precision; truncated so the cached head compares equal to it
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        PageVersion latest = head != null ? head.version() : null;
+        if (latest != null && Objects.equals(latest.getUserId(), userId)
+                && latest.getCreatedAt() != null
+                && now.toEpochMilli() - latest.getCreatedAt().toEpochMilli() < coalesceMillis
+                && (latest.isSnapshot() || head.base() != null)) {
+            // Fold into the latest version, rewritten against the version before it
+            PageVersion rewritten = buildVersion(pageId, latest.getVersion(), userId, current, head.base(),
+                latest.isSnapshot());
+            rewritten.setId(latest.getId());
+            rewritten.setCreatedAt(latest.getCreatedAt());
+            rewritten.setUpdatedAt(now);
+            Query unchanged = new Query(Criteria.where("_id").is(latest.getId()).and("updatedAt").is(latest.getUpdatedAt()));
+            if (mongoTemplate.findAndReplace(unchanged, rewritten) == null) {
+                return false;
+            }
+            cache(pageId, new Head(summaryOf(rewritten), current, head.base()));
+            return true;
+        }
+
+        long number = latest != null ? latest.getVersion() + 1 : 1;
+        State base = head != null ? head.state() : null;
+        PageVersion version = buildVersion(pageId, number, userId, current, base, false);
+        version.setCreatedAt(now);
+        version.setUpdatedAt(now);
+        try {
+            version = mongoTemplate.insert(version);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        cache(pageId, new Head(summaryOf(version), current, base));
+        if (number % PRUNE_EVERY == 0) {
+            prune(pageId, number);
+        }
+        return true;
+    }
+
+    /**
+     * Newest first. Pass the last version seen as before to page back.
+     */
+    public List<PageVersionSummary> listVersions(String pageId, Long before, int limit) {
+        Criteria criteria = Criteria.where("pageId").is(pageId);
+        if (before != null) {
+            criteria = criteria.and("version").lt(before);
+        }
+        Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.DESC, "version"))
+            .limit(Math.max(1, Math.min(limit, MAX_LIST_LIMIT)));
+        excludeContent(query);
+
+        List<PageVersionSummary> summaries = new ArrayList<>();
+        for (PageVersion version : mongoTemplate.find(query, PageVersion.class)) {
+            summaries.add(PageVersionSummary.builder()
+                .version(version.getVersion())
+                .title(version.getTitle())
+                .userId(version.getUserId())
+                .createdAt(version.getCreatedAt())
+                .updatedAt(version.getUpdatedAt())
+                .blockCount(version.getBlockCount())
+                .added(version.getAdded())
+                .removed(version.getRemoved())
+                .modified(version.getModified())
+                .build());
+        }
+        return summaries;
+    }
+
+    /**
+     * The page as of the given version, or null if that version is not stored.
+     */
+    public PageVersionResponse getVersion(String pageId, long version) {
+        Query query = new Query(Criteria.where("pageId").is(pageId).and("version").is(version));
+        excludeContent(query);
+        PageVersion stored = mongoTemplate.findOne(query, PageVersion.class);
+        State state = stored != null ? rebuild(pageId, version) : null;
+        if (state == null) {
+            return null;
+        }
+        return PageVersionResponse.builder()
+            .pageId(pageId)
+            .version(version)
+            .title(state.title())
+            .blocks(state.blocks())
+            .userId(stored.getUserId())
+            .createdAt(stored.getCreatedAt())
+            .updatedAt(stored.getUpdatedAt())
+            .build();
+    }
+
+    /**
+     * Block-level difference between two stored versions, or null if either is missing.
+     */
+    public VersionDiffResponse diff(String pageId, long fromVersion, long toVersion) {
+        State from = rebuild(pageId, fromVersion);
+        State to = rebuild(pageId, toVersion);
+        if (from == null || to == null) {
+            return null;
+        }
+
+        VersionDiffResponse.VersionDiffResponseBuilder response = VersionDiffResponse.builder()
+            .fromVersion(fromVersion)
+            .toVersion(toVersion)
+            .fromTitle(from.title())
+            .toTitle(to.title())
+            .titleChanged(!Objects.equals(from.title(), to.title()));
+
+        BlockDiff diff = BlockDiff.compute(from.blocks(), to.blocks());
+        if (diff == null) {
+            // Blocks without usable ids cannot be matched up
+            return response.added(to.blocks()).removed(from.blocks())
+                .modified(List.of()).movedBlockIds(List.of()).build();
+        }
+        List<VersionDiffResponse.Modification> modified = new ArrayList<>();
+        diff.modified.forEach(pair -> modified.add(new VersionDiffResponse.Modification(pair[0], pair[1])));
+        return response.added(diff.added).removed(diff.removed).modified(modified).movedBlockIds(diff.moved).build();
+    }
+
+    public void deleteVersionsForPage(String pageId) {
+        synchronized (lockFor(pageId)) {
+            evict(pageId);
+            mongoTemplate.remove(new Query(Criteria.where("pageId").is(pageId)), PageVersion.class);
+        }
+    }
+
+    private PageVersion buildVersion(String pageId, long number, String userId, State current, State base,
+                                     boolean forceSnapshot) {
+        BlockDiff diff = base != null ? BlockDiff.compute(base.blocks(), current.blocks()) : null;
+        int changed = diff != null ? diff.added.size() + diff.modified.size() + diff.removed.size() : 0;
+
+        PageVersion version = PageVersion.builder()
+            .pageId(pageId)
+            .version(number)
+            .userId(userId)
+            .title(current.title())
+            .blockCount(current.blocks().size())
+            .added(diff != null ? diff.added.size() : current.blocks().size())
+            .removed(diff != null ? diff.removed.size() : 0)
+            .modified(diff != null ? diff.modified.size() : 0)
+            .build();
+
+        boolean snapshot = forceSnapshot || diff == null || (number - 1) % snapshotEvery == 0
+            // A delta touching most of the page is barely smaller than a snapshot
+            || changed > Math.max(8, current.blocks().size() / 2);
+        if (snapshot) {
+            version.setSnapshot(true);
+            version.setPackedBlocks(BlockCodec.encode(current.blocks()));
+            return version;
+        }
+
+        writeDelta(version, diff, current.blocks());
+        return version;
+    }
+
+    /**
+     * Store the diff on the version as what applyDelta needs to get from the previous blocks to these.
+     */
+    static void writeDelta(PageVersion version, BlockDiff diff, List<Block> blocks) {
+        List<Block> changedBlocks = new ArrayList<>(diff.added);
+        diff.modified.forEach(pair -> changedBlocks.add(pair[1]));
+        version.setChangedBlocks(changedBlocks);
+        version.setRemovedBlockIds(diff.removed.stream().map(Block::getId).toList());
+        if (!diff.orderImplied) {
+            version.setBlockOrder(blocks.stream().map(Block::getId).toList());
+        }
+    }
+
+    /**
+     * Replay from the nearest snapshot at or before the version.
+     */
+    private State rebuild(String pageId, long version) {
+        Query snapshotQuery = new Query(Criteria.where("pageId").is(pageId)
+                .and("snapshot").is(true).and("version").lte(version))
+            .with(Sort.by(Sort.Direction.DESC, "version"))
+            .limit(1);
+        PageVersion snapshot = mongoTemplate.findOne(snapshotQuery, PageVersion.class);
+        if (snapshot == null) {
+            return null;
+        }
+
+        List<Block> blocks = snapshotBlocks(snapshot);
+        String title = snapshot.getTitle();
+        long reached = snapshot.getVersion();
+        if (version > snapshot.getVersion()) {
+            Query deltaQuery = new Query(Criteria.where("pageId").is(pageId)
+                    .and("version").gt(snapshot.getVersion()).lte(version))
+                .with(Sort.by(Sort.Direction.ASC, "version"));
+            for (PageVersion delta : mongoTemplate.find(deltaQuery, PageVersion.class)) {
+                if (delta.isSnapshot()) {
+                    blocks = snapshotBlocks(delta);
+                } else {
+                    blocks = applyDelta(blocks, delta);
+                }
+                title = delta.getTitle();
+                reached = delta.getVersion();
+            }
+        }
+        return reached == version ? new State(title, blocks) : null;
+    }
+
+    private static List<Block> snapshotBlocks(PageVersion snapshot) {
+        if (snapshot.getPackedBlocks() != null) {
+            return BlockCodec.decode(snapshot.getPackedBlocks());
+        }
+        return snapshot.getBlocks() != null ? snapshot.getBlocks() : List.of();
+    }
+
+    static List<Block> applyDelta(List<Block> blocks, PageVersion delta) {
+        Map<String, Block> byId = new LinkedHashMap<>();
+        blocks.forEach(block -> byId.put(block.getId(), block));
+        if (delta.getRemovedBlockIds() != null) {
+            delta.getRemovedBlockIds().forEach(byId::remove);
+        }
+        if (delta.getChangedBlocks() != null) {
+            delta.getChangedBlocks().forEach(block -> byId.put(block.getId(), block));
+        }
+        if (delta.getBlockOrder() == null) {
+            return new ArrayList<>(byId.values());
+        }
+        List<Block> ordered = new ArrayList<>(delta.getBlockOrder().size());
+        for (String id : delta.getBlockOrder()) {
+            Block block = byId.get(id);
+            if (block != null) {
+                ordered.add(block);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * The cached head if it still matches the latest stored version, otherwise rebuilt from the store.
+     */
+    private Head loadHead(String pageId) {
+        Query query = new Query(Criteria.where("pageId").is(pageId))
+            .with(Sort.by(Sort.Direction.DESC, "version"))
+            .limit(1);
+        excludeContent(query);
+        PageVersion latest = mongoTemplate.findOne(query, PageVersion.class);
+        Head cached;
+        synchronized (heads) {
+            cached = heads.get(pageId);
+        }
+        if (latest == null) {
+            if (cached != null) {
+                evict(pageId);
+            }
+            return null;
+        }
+        if (cached != null && cached.version().getVersion() == latest.getVersion()
+                && Objects.equals(cached.version().getUpdatedAt(), latest.getUpdatedAt())) {
+            return cached;
+        }
+        State state = rebuild(pageId, latest.getVersion());
+        if (state == null) {
+            return null;
+        }
+        Head head = new Head(latest, state, null);
+        cache(pageId, head);
+        return head;
+    }
+
+    private void cache(String pageId, Head head) {
+        synchronized (heads) {
+            heads.put(pageId, head);
+        }
+    }
+
+    private void evict(String pageId) {
+        synchronized (heads) {
+            heads.remove(pageId);
+        }
+    }
+
+    /**
+     * Drop versions older than the newest max-per-page, keeping the snapshot the oldest kept delta replays from.
+     */
+    private void prune(String pageId, long latestVersion) {
+        long cutoff = latestVersion - maxVersionsPerPage + 1;
+        if (cutoff <= 1) {
+            return;
+        }
+        Query snapshotQuery = new Query(Criteria.where("pageId").is(pageId)
+                .and("snapshot").is(true).and("version").lte(cutoff))
+            .with(Sort.by(Sort.Direction.DESC, "version"))
+            .limit(1);
+        snapshotQuery.fields().include("version");
+        PageVersion keepFrom = mongoTemplate.findOne(snapshotQuery, PageVersion.class);
+        if (keepFrom != null) {
+            mongoTemplate.remove(new Query(Criteria.where("pageId").is(pageId)
+                .and("version").lt(keepFrom.getVersion())), PageVersion.class);
+        }
+    }
+
+    private static PageVersion summaryOf(PageVersion version) {
+        return PageVersion.builder()
+            .id(version.getId())
+            .pageId(version.getPageId())
+            .version(version.getVersion())
+            .snapshot(version.isSnapshot())
+            .userId(version.getUserId())
+            .createdAt(version.getCreatedAt())
+            .updatedAt(version.getUpdatedAt())
+            .build();
+    }
+
+    private static void excludeContent(Query query) {
+        query.fields().exclude("packedBlocks").exclude("blocks").exclude("changedBlocks").exclude("removedBlockIds").exclude("blockOrder");
+    }
+
+    private static boolean sameState(State a, State b) {
+        if (!Objects.equals(a.title(), b.title()) || a.blocks().size() != b.blocks().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.blocks().size(); i++) {
+            Block x = a.blocks().get(i);
+            Block y = b.blocks().get(i);
+            if (!Objects.equals(x.getId(), y.getId()) || !BlockDiff.sameContent(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Detached copies; also accepts blocks still in raw map form from untyped request bodies.
+     */
+    private List<Block> normalize(List<?> blocks) {
+        if (blocks == null) {
+            return List.of();
+        }
+        List<Block> copies = new ArrayList<>(blocks.size());
+        for (Object item : blocks) {
+            Block block = item instanceof Block b ? b : objectMapper.convertValue(item, Block.class);
+            copies.add(Block.builder()
+                .id(block.getId())
+                .type(block.getType())
+                .content(block.getContent())
+                .checked(block.getChecked())
+                .build());
+        }
+        return copies;
+    }
+
+    private Object lockFor(String pageId) {
+        return locks[Math.floorMod(pageId.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,228 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.PageViewStats;
+import com.clone.notion.payload.response.PageViewStatsResponse;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Page view counting that never writes to Mongo on the read path.
+ *
+ * Each page viewed since the last flush has a pair of LongAdders (striped
+ * counters, so concurrent viewers of a hot page do not contend) and a
+ * HyperLogLog sketch of viewer ids. Recording a view allocates nothing once
+ * the page's counters exist. A scheduled flush drains the pending counts into
+ * page_view_stats with $inc and merges the drained sketches into the stored
+ * ones, in one bulk write.
+ *
+ * The merged sketch is written only if the stored one is still the one that
+ * was read (sketchVersion), together with the counters, so a concurrent flush
+ * from another instance cannot lose viewers or let views and uniques drift
+ * apart. Pages that lost the race are read, merged and written again; pages
+ * still unwritten after MAX_ATTEMPTS, or whose writes failed, are kept for the
+ * next flush.
+ */
+@Service
+@RequiredArgsConstructor
+public class PageViewService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final class PendingViews {
+        final LongAdder views = new LongAdder();
+        final LongAdder publicViews = new LongAdder();
+        final HyperLogLog viewers = new HyperLogLog();
+        volatile long lastViewedAtMillis;
+    }
+
+    private record DrainedViews(long views, long publicViews, HyperLogLog viewers, long lastViewedAtMillis) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ConcurrentHashMap<String, PendingViews> pending = new ConcurrentHashMap<>();
+
+    @Value("${analytics.page-views.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.page-views.max-pending-pages:20000}")
+    private int maxPendingPages;
+
+    public void recordView(String pageId, String viewerId, boolean viaPublicLink) {
+        if (!enabled || pageId == null) {
+            return;
+        }
+        PendingViews views = pending.get(pageId);
+        if (views == null) {
+            // Views of new pages are dropped if the flush falls far behind
+            if (pending.size() >= maxPendingPages) {
+                return;
+            }
+            views = pending.computeIfAbsent(pageId, id -> new PendingViews());
+        }
+        views.views.increment();
+        if (viaPublicLink) {
+            views.publicViews.increment();
+        }
+        if (viewerId != null) {
+            views.viewers.offer(HyperLogLog.hash(viewerId));
+        }
+        views.lastViewedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Stored totals plus the views not flushed yet.
+     */
+    public PageViewStatsResponse getStats(String pageId) {
+        PageViewStats stored = mongoTemplate.findById(pageId, PageViewStats.class);
+
+        long views = stored != null ? stored.getViews() : 0;
+        long publicViews = stored != null ? stored.getPublicViews() : 0;
+        Instant lastViewedAt = stored != null ? stored.getLastViewedAt() : null;
+        HyperLogLog viewers = HyperLogLog.fromBytes(stored != null ? stored.getViewerSketch() : null);
+
+        PendingViews unflushed = pending.get(pageId);
+        if (unflushed != null) {
+            views += unflushed.views.sum();
+            publicViews += unflushed.publicViews.sum();
+            viewers.merge(unflushed.viewers);
+            if (unflushed.lastViewedAtMillis > 0) {
+                Instant pendingLast = Instant.ofEpochMilli(unflushed.lastViewedAtMillis);
+                if (lastViewedAt == null || pendingLast.isAfter(lastViewedAt)) {
+                    lastViewedAt = pendingLast;
+                }
+            }
+        }
+
+        return PageViewStatsResponse.builder()
+            .pageId(pageId)
+            .views(views)
+            .publicViews(publicViews)
+            .uniqueViewers(viewers.estimate())
+            .lastViewedAt(lastViewedAt)
+            .build();
+    }
+
+    @Scheduled(initialDelayString = "${analytics.page-views.flush-interval-ms:30000}",
+               fixedDelayString = "${analytics.page-views.flush-interval-ms:30000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Drain pending counters and sketches into page_view_stats.
+     */
+    public synchronized void flush() {
+        Map<String, DrainedViews> drained = new HashMap<>();
+        pending.forEach((pageId, views) -> {
+            long count = views.views.sumThenReset();
+            long publicCount = views.publicViews.sumThenReset();
+            HyperLogLog sketch = views.viewers.drain();
+            if (count == 0 && sketch.isEmpty()) {
+                // Idle since the last flush; a view racing with this removal may be lost
+                pending.remove(pageId, views);
+                return;
+            }
+            drained.put(pageId, new DrainedViews(count, publicCount, sketch, views.lastViewedAtMillis));
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        Set<String> unwritten = drained.keySet();
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS && !unwritten.isEmpty(); attempt++) {
+                unwritten = writeStats(unwritten, drained);
+            }
+            System.out.println("[DEBUG] Flushed page views for " + (drained.size() - unwritten.size()) + " pages");
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to flush page views, keeping them for the next flush: " + e.getMessage());
+        }
+        if (unwritten.isEmpty()) {
+            return;
+        }
+        // Put the drained counts of the unwritten pages back so they are retried
+        for (String pageId : unwritten) {
+            DrainedViews counts = drained.get(pageId);
+            PendingViews views = pending.computeIfAbsent(pageId, id -> new PendingViews());
+            views.views.add(counts.views());
+            views.publicViews.add(counts.publicViews());
+            views.viewers.merge(counts.viewers());
+            views.lastViewedAtMillis = Math.max(views.lastViewedAtMillis, counts.lastViewedAtMillis());
+        }
+    }
+
+    /**
+     * Merge the pages' drained views into their stored stats in one bulk write.
+     * Returns the pages whose write did not apply.
+     */
+    private Set<String> writeStats(Set<String> pageIds, Map<String, DrainedViews> drained) {
+        // Stored sketches for all the pages in one query, merged in memory
+        Query storedQuery = new Query(Criteria.where("_id").in(pageIds));
+        storedQuery.fields().include("viewerSketch").include("sketchVersion");
+        Map<String, PageViewStats> stored = new HashMap<>();
+        mongoTemplate.find(storedQuery, PageViewStats.class).forEach(stats -> stored.put(stats.getPageId(), stats));
+
+        Instant now = Instant.now();
+        List<String> order = new ArrayList<>(pageIds);
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PageViewStats.class);
+        for (String pageId : order) {
+            DrainedViews counts = drained.get(pageId);
+            PageViewStats current = stored.get(pageId);
+            Long version = current != null ? current.getSketchVersion() : null;
+            HyperLogLog sketch = HyperLogLog.fromBytes(current != null ? current.getViewerSketch() : null);
+            sketch.merge(counts.viewers());
+            // If another flush wrote the page since it was read, the query no longer matches
+            // and the upsert fails with a duplicate key on _id instead of overwriting the sketch
+            ops.upsert(new Query(Criteria.where("_id").is(pageId).and("sketchVersion").is(version)), new Update()
+                .inc("views", counts.views())
+                .inc("publicViews", counts.publicViews())
+                .set("viewerSketch", sketch.toBytes())
+                .set("sketchVersion", version == null ? 1 : version + 1)
+                .max("lastViewedAt", Instant.ofEpochMilli(counts.lastViewedAtMillis()))
+                .set("updatedAt", now));
+        }
+        try {
+            ops.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // The bulk is unordered, so every operation without an error was applied
+            Set<String> failed = new HashSet<>();
+            e.getErrors().forEach(error -> failed.add(order.get(error.getIndex())));
+            return failed;
+        }
+    }
+
+    public void deleteStatsForPage(String pageId) {
+        pending.remove(pageId);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(pageId)), PageViewStats.class);
+    }
+}
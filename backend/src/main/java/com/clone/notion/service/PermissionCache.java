@@ -0,0 +1,134 @@
+package com.clone.notion.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.clone.notion.model.Permission;
+
+/**
+ * Bounded LRU cache of effective (pageId, userId) permission decisions.
+ *
+ * A decision records the page path it was resolved over (the page and its
+ * ancestors), so a share change on any page invalidates the decisions of all
+ * cached descendants as well.
+ *
+ * Negative decisions are cached too. Each decision carries the earliest expiry
+ * of the shares it was derived from and is dropped once that instant passes,
+ * or after shares.permission-cache.ttl-ms at the latest. Invalidation only
+ * reaches this instance's cache, so a share, revoke or public change made on
+ * another instance takes effect here within that bound.
+ * Every invalidation bumps an epoch; a decision computed while an invalidation
+ * happened is returned to its caller but not stored, so a concurrent revoke can
+ * never be masked by a stale entry.
+ */
+@Component
+public class PermissionCache {
+
+    /**
+     * An effective permission, or null permission for "no access", and the pages
+     * whose shares it was derived from.
+     */
+    public record Decision(Permission permission, Instant expiresAt, List<String> path) {
+
+        public boolean allows(Permission required) {
+            return permission != null && permission.allows(required);
+        }
+
+        boolean dependsOn(String pageId) {
+            return path.contains(pageId);
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+    }
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<String, Decision> entries;
+
+    public PermissionCache(@Value("${shares.permission-cache.max-entries:10000}") int maxEntries,
+                           @Value("${shares.permission-cache.ttl-ms:30000}") long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Decision> eldest) {
+                return size() > PermissionCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Decision get(String pageId, String userId, Supplier<Decision> loader) {
+        String key = key(pageId, userId);
+        Instant now = Instant.now();
+        synchronized (entries) {
+            Decision cached = entries.get(key);
+            if (cached != null && !cached.isExpired(now)) {
+                return cached;
+            }
+        }
+
+        long observedEpoch = epoch.get();
+        Decision decision = loader.get();
+        Instant maxExpiry = now.plus(ttl);
+        Decision stored = decision.expiresAt() == null || decision.expiresAt().isAfter(maxExpiry)
+            ? new Decision(decision.permission(), maxExpiry, decision.path())
+            : decision;
+        synchronized (entries) {
+            if (epoch.get() == observedEpoch) {
+                entries.put(key, stored);
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * Drop the user's decisions on the page and on all of its cached descendants.
+     */
+    public void invalidate(String pageId, String userId) {
+        String suffix = "|" + userId;
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.entrySet().removeIf(e -> e.getKey().endsWith(suffix) && e.getValue().dependsOn(pageId));
+        }
+    }
+
+    /**
+     * Drop every decision on the page and on all of its cached descendants.
+     */
+    public void invalidatePage(String pageId) {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.values().removeIf(decision -> decision.dependsOn(pageId));
+        }
+    }
+
+    public void invalidateUser(String userId) {
+        String suffix = "|" + userId;
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.keySet().removeIf(key -> key.endsWith(suffix));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    private static String key(String pageId, String userId) {
+        return pageId + "|" + userId;
+    }
+}
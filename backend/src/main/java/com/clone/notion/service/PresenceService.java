@@ -0,0 +1,546 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import com.clone.notion.payload.response.PresenceResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * In-memory presence rosters, one per page, fed by WebSocket sessions.
+ *
+ * Nothing here touches Mongo: a roster is a concurrent map of connected
+ * sessions with their last cursor and selection. Joins and leaves are
+ * broadcast right away, each message serialized once. Cursor and selection
+ * changes only overwrite the participant's latest value and mark the page
+ * dirty; a fixed-rate tick (20 Hz by default) on its own thread, so the shared
+ * scheduler's longer jobs cannot delay it, sends each dirty page one
+ * "cursors" frame holding, per participant, just the fields that changed since
+ * the last tick. Intermediate positions between ticks are never sent, so a
+ * room costs at most one frame per tick however fast its cursors move.
+ *
+ * Clients send a heartbeat; sessions silent for longer than the timeout
+ * are closed and leave the roster. A user with several tabs open counts as one
+ * participant: join is announced for their first session and leave for their last,
+ * and peers see the cursor of whichever of their sessions moved most recently.
+ *
+ * Clients that cannot open a WebSocket can still report presence over REST;
+ * they get a session-less entry that expires the same way.
+ *
+ * Outbound frames are bounded per session. Once a session has more than
+ * presence.backlog-bytes waiting to be sent, cursor frames are skipped for it
+ * and it gets one roster frame with the latest positions when it catches up.
+ * Operation frames are dropped for it; clients find the gap from the revision
+ * numbers and fetch what they missed. Roster, join and leave frames are always
+ * queued, and a session that overflows the send buffer is closed. Cursor
+ * messages from sockets are not rate limited: each one only replaces the
+ * latest value, and the tick bounds what is broadcast however many arrive.
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private static final String HTTP_SESSION_PREFIX = "http:";
+
+    /**
+     * A user's cursor as of the last broadcast, shared by all their sessions on a
+     * page. Rosters expose these values so that later deltas apply to them.
+     */
+    private static final class SentCursor {
+        volatile JsonNode cursor;
+        volatile JsonNode selection;
+    }
+
+    private static final class Participant {
+        final String sessionId;
+        final String userId;
+        final String username;
+        // Null for REST clients
+        final ConcurrentWebSocketSessionDecorator session;
+        // Latest values reported by the client
+        volatile JsonNode cursor;
+        volatile JsonNode selection;
+        volatile long cursorChangedMillis;
+        // Set by add() before the participant is visible in the roster
+        SentCursor sent;
+        volatile long lastSeenMillis;
+        // Skipped a cursor frame while backlogged; gets a full roster instead
+        volatile boolean needsRoster;
+
+        Participant(String sessionId, String userId, String username, ConcurrentWebSocketSessionDecorator session) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.username = username;
+            this.session = session;
+            this.lastSeenMillis = System.currentTimeMillis();
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Participant>> rosters = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final Set<String> dirtyPages = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService tickExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "presence-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong cursorEventsReceived = new AtomicLong();
+    private final AtomicLong cursorUpdatesSent = new AtomicLong();
+    private final AtomicLong cursorFramesSent = new AtomicLong();
+    private final AtomicLong cursorFramesSkipped = new AtomicLong();
+    private final AtomicLong rosterResyncsSent = new AtomicLong();
+    private final AtomicLong operationFramesDropped = new AtomicLong();
+
+    @Value("${presence.tick-ms:50}")
+    private long tickMs;
+
+    @Value("${presence.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${presence.max-connections:20000}")
+    private int maxConnections;
+
+    @Value("${presence.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${presence.send-buffer-bytes:65536}")
+    private int sendBufferBytes;
+
+    @Value("${presence.backlog-bytes:16384}")
+    private int backlogBytes;
+
+    /**
+     * Add a WebSocket session to the page's roster, send it the current roster
+     * and announce the user to the others. Returns false when the connection
+     * limit is reached.
+     */
+    public boolean join(String pageId, WebSocketSession session, String userId, String username) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            return false;
+        }
+
+        // Serializes concurrent sends; a client that stops reading is disconnected
+        // instead of buffering without bound
+        ConcurrentWebSocketSessionDecorator outbound = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferBytes,
+            ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        Participant participant = new Participant(session.getId(), userId, username, outbound);
+        boolean firstForUser = add(pageId, participant);
+
+        Map<String, Participant> roster = rosters.get(pageId);
+        if (roster != null) {
+            // Under the page lock so no cursor frame built before the snapshot is sent after it
+            synchronized (roster) {
+                send(pageId, participant, rosterMessage(pageId));
+            }
+        }
+        if (firstForUser) {
+            broadcast(pageId, participantMessage("join", participant), participant.sessionId, false);
+        }
+        return true;
+    }
+
+    /**
+     * Handle a client message: {"type":"heartbeat"} or {"type":"cursor","cursor":...,"selection":...}.
+     */
+    public void handleMessage(String pageId, String sessionId, JsonNode message) {
+        Map<String, Participant> roster = rosters.get(pageId);
+        Participant participant = roster != null ? roster.get(sessionId) : null;
+        if (participant == null) {
+            return;
+        }
+        participant.lastSeenMillis = System.currentTimeMillis();
+
+        if ("cursor".equals(message.path("type").asText())) {
+            updateCursor(pageId, participant, message.get("cursor"), message.get("selection"));
+        }
+    }
+
+    /**
+     * Presence reported over REST by a client without a WebSocket.
+     */
+    public void updateViaHttp(String pageId, String userId, String username, JsonNode cursor, JsonNode selection) {
+        String sessionId = HTTP_SESSION_PREFIX + userId;
+        Map<String, Participant> roster = rosters.get(pageId);
+        Participant existing = roster != null ? roster.get(sessionId) : null;
+        if (existing != null) {
+            existing.lastSeenMillis = System.currentTimeMillis();
+            updateCursor(pageId, existing, cursor, selection);
+            return;
+        }
+
+        Participant participant = new Participant(sessionId, userId, username, null);
+        if (add(pageId, participant)) {
+            broadcast(pageId, participantMessage("join", participant), sessionId, false);
+        }
+        updateCursor(pageId, participant, cursor, selection);
+    }
+
+    public void leave(String pageId, String sessionId) {
+        Participant[] removed = new Participant[1];
+        boolean[] lastForUser = new boolean[1];
+        rosters.computeIfPresent(pageId, (id, roster) -> {
+            removed[0] = roster.remove(sessionId);
+            if (removed[0] != null) {
+                lastForUser[0] = roster.values().stream().noneMatch(other -> other.userId.equals(removed[0].userId));
+            }
+            return roster.isEmpty() ? null : roster;
+        });
+
+        Participant participant = removed[0];
+        if (participant == null) {
+            return;
+        }
+        if (participant.session != null) {
+            connectionCount.decrementAndGet();
+        }
+        if (lastForUser[0]) {
+            ObjectNode message = objectMapper.createObjectNode()
+                .put("type", "leave")
+                .put("userId", participant.userId);
+            broadcast(pageId, message, null, false);
+        }
+    }
+
+    /**
+     * Send a server event to every session on the page, e.g. operations applied by other editors.
+     * Backlogged sessions do not get it; the event must be recoverable by the client.
+     */
+    public void publish(String pageId, ObjectNode message) {
+        broadcast(pageId, message, null, true);
+    }
+
+    /**
+     * Current participants of the page, one entry per user (their most recently active session).
+     */
+    public List<PresenceResponse> getPresence(String pageId) {
+        Map<String, Participant> roster = rosters.get(pageId);
+        if (roster == null) {
+            return List.of();
+        }
+        Map<String, Participant> latestByUser = new HashMap<>();
+        for (Participant participant : roster.values()) {
+            latestByUser.merge(participant.userId, participant,
+                (a, b) -> a.lastSeenMillis >= b.lastSeenMillis ? a : b);
+        }
+        List<PresenceResponse> presence = new ArrayList<>(latestByUser.size());
+        latestByUser.values().forEach(participant -> presence.add(toResponse(participant)));
+        return presence;
+    }
+
+    public Map<String, Object> getStats() {
+        long received = cursorEventsReceived.get();
+        long sent = cursorUpdatesSent.get();
+        return Map.of(
+            "pages", rosters.size(),
+            "connections", connectionCount.get(),
+            "cursorEventsReceived", received,
+            "cursorUpdatesSent", sent,
+            "cursorFramesSent", cursorFramesSent.get(),
+            // Client cursor events per participant update actually broadcast
+            "coalescingRatio", sent == 0 ? 0.0 : (double) received / sent,
+            "cursorFramesSkipped", cursorFramesSkipped.get(),
+            "rosterResyncsSent", rosterResyncsSent.get(),
+            "operationFramesDropped", operationFramesDropped.get()
+        );
+    }
+
+    @PostConstruct
+    public void startTicks() {
+        tickExecutor.scheduleAtFixedRate(() -> {
+            try {
+                broadcastCursorTick();
+            } catch (Exception e) {
+                // A failed tick must not cancel the ones after it
+                System.out.println("[ERROR] Presence tick failed: " + e.getMessage());
+            }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopTicks() {
+        tickExecutor.shutdownNow();
+    }
+
+    /**
+     * Broadcast one delta frame per dirty page. A page stays dirty while one of
+     * its sessions is owed a roster resync.
+     */
+    public void broadcastCursorTick() {
+        for (String pageId : dirtyPages) {
+            // Removed before reading, so a change racing with this tick re-marks the page
+            dirtyPages.remove(pageId);
+            Map<String, Participant> roster = rosters.get(pageId);
+            if (roster == null) {
+                continue;
+            }
+            synchronized (roster) {
+                // One value per user: the session that moved its cursor last
+                Map<String, Participant> activeByUser = new HashMap<>();
+                for (Participant participant : roster.values()) {
+                    activeByUser.merge(participant.userId, participant,
+                        (a, b) -> a.cursorChangedMillis >= b.cursorChangedMillis ? a : b);
+                }
+                ArrayNode updates = objectMapper.createArrayNode();
+                for (Participant participant : activeByUser.values()) {
+                    ObjectNode update = cursorDelta(participant);
+                    if (update != null) {
+                        updates.add(update);
+                    }
+                }
+                ObjectNode message = null;
+                if (!updates.isEmpty()) {
+                    message = objectMapper.createObjectNode().put("type", "cursors");
+                    message.set("updates", updates);
+                    cursorUpdatesSent.addAndGet(updates.size());
+                    cursorFramesSent.incrementAndGet();
+                }
+                if (sendCursorFrame(pageId, roster, message)) {
+                    dirtyPages.add(pageId);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${presence.sweep-interval-ms:10000}")
+    public void evictSilentParticipants() {
+        long cutoff = System.currentTimeMillis() - timeoutMs;
+        rosters.forEach((pageId, roster) -> roster.values().forEach(participant -> {
+            if (participant.lastSeenMillis < cutoff) {
+                disconnect(pageId, participant, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }));
+    }
+
+    /**
+     * Add a participant; returns true if the user had no other session on the page.
+     */
+    private boolean add(String pageId, Participant participant) {
+        boolean[] firstForUser = new boolean[1];
+        rosters.compute(pageId, (id, roster) -> {
+            ConcurrentHashMap<String, Participant> target = roster != null ? roster : new ConcurrentHashMap<>();
+            Participant sibling = target.values().stream()
+                .filter(other -> other.userId.equals(participant.userId))
+                .findAny()
+                .orElse(null);
+            firstForUser[0] = sibling == null;
+            participant.sent = sibling != null ? sibling.sent : new SentCursor();
+            target.put(participant.sessionId, participant);
+            return target;
+        });
+        return firstForUser[0];
+    }
+
+    private void updateCursor(String pageId, Participant participant, JsonNode cursor, JsonNode selection) {
+        if (cursor == null && selection == null) {
+            return;
+        }
+        if (cursor != null) {
+            participant.cursor = cursor;
+        }
+        if (selection != null) {
+            participant.selection = selection;
+        }
+        participant.cursorChangedMillis = System.currentTimeMillis();
+        cursorEventsReceived.incrementAndGet();
+        // Sent on the next tick; later changes before then replace this one
+        dirtyPages.add(pageId);
+    }
+
+    /**
+     * What changed for the participant's user since the last tick, or null if nothing did.
+     * The delta is taken against the user's last broadcast value, which may have come
+     * from another of their sessions. Object values that were objects before are sent as a patch of changed fields
+     * (null marks a removed field) under cursorDelta / selectionDelta.
+     */
+    private ObjectNode cursorDelta(Participant participant) {
+        JsonNode cursor = participant.cursor;
+        JsonNode selection = participant.selection;
+        ObjectNode update = objectMapper.createObjectNode();
+        SentCursor sent = participant.sent;
+        boolean changed = putDelta(update, "cursor", sent.cursor, cursor);
+        changed |= putDelta(update, "selection", sent.selection, selection);
+        if (!changed) {
+            return null;
+        }
+        sent.cursor = cursor;
+        sent.selection = selection;
+        update.put("userId", participant.userId);
+        return update;
+    }
+
+    private boolean putDelta(ObjectNode update, String field, JsonNode previous, JsonNode current) {
+        if (Objects.equals(previous, current)) {
+            return false;
+        }
+        if (previous instanceof ObjectNode before && current instanceof ObjectNode after) {
+            ObjectNode patch = objectMapper.createObjectNode();
+            after.fields().forEachRemaining(entry -> {
+                if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                    patch.set(entry.getKey(), entry.getValue());
+                }
+            });
+            before.fieldNames().forEachRemaining(name -> {
+                if (!after.has(name)) {
+                    patch.putNull(name);
+                }
+            });
+            update.set(field + "Delta", patch);
+        } else {
+            update.set(field, current);
+        }
+        return true;
+    }
+
+    private ObjectNode rosterMessage(String pageId) {
+        ObjectNode message = objectMapper.createObjectNode().put("type", "roster");
+        message.set("participants", objectMapper.valueToTree(getPresence(pageId)));
+        return message;
+    }
+
+    private ObjectNode participantMessage(String type, Participant participant) {
+        ObjectNode message = objectMapper.createObjectNode().put("type", type);
+        message.set("participant", objectMapper.valueToTree(toResponse(participant)));
+        return message;
+    }
+
+    private PresenceResponse toResponse(Participant participant) {
+        return PresenceResponse.builder()
+            .userId(participant.userId)
+            .username(participant.username)
+            .cursor(participant.sent.cursor)
+            .selection(participant.sent.selection)
+            .lastSeen(Instant.ofEpochMilli(participant.lastSeenMillis))
+            .build();
+    }
+
+    private void send(String pageId, Participant participant, ObjectNode message) {
+        try {
+            participant.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (Exception e) {
+            disconnect(pageId, participant, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    /**
+     * Send the tick's cursor frame (if any) to the page's sessions, holding it back from
+     * backlogged ones. Returns true if a session is still owed a roster resync.
+     */
+    private boolean sendCursorFrame(String pageId, Map<String, Participant> roster, ObjectNode message) {
+        TextMessage frame = message != null ? serialize(message) : null;
+        TextMessage rosterFrame = null;
+        boolean resyncPending = false;
+        for (Participant participant : roster.values()) {
+            if (participant.session == null) {
+                continue;
+            }
+            if (isBacklogged(participant)) {
+                if (frame != null) {
+                    participant.needsRoster = true;
+                    cursorFramesSkipped.incrementAndGet();
+                }
+                resyncPending |= participant.needsRoster;
+            } else if (participant.needsRoster) {
+                // Holds the positions as of this tick, so it replaces every skipped frame
+                if (rosterFrame == null) {
+                    rosterFrame = serialize(rosterMessage(pageId));
+                }
+                participant.needsRoster = false;
+                sendFrame(pageId, participant, rosterFrame);
+                rosterResyncsSent.incrementAndGet();
+            } else if (frame != null) {
+                sendFrame(pageId, participant, frame);
+            }
+        }
+        return resyncPending;
+    }
+
+    /**
+     * @param droppable skip sessions that are backlogged instead of queueing more for them
+     */
+    private void broadcast(String pageId, ObjectNode message, String excludeSessionId, boolean droppable) {
+        Map<String, Participant> roster = rosters.get(pageId);
+        if (roster == null) {
+            return;
+        }
+        // Serialized once, the same frame goes to every session
+        TextMessage frame = serialize(message);
+        if (frame == null) {
+            return;
+        }
+        for (Participant participant : roster.values()) {
+            if (participant.session == null || participant.sessionId.equals(excludeSessionId)) {
+                continue;
+            }
+            if (droppable && isBacklogged(participant)) {
+                operationFramesDropped.incrementAndGet();
+                continue;
+            }
+            sendFrame(pageId, participant, frame);
+        }
+    }
+
+    private boolean isBacklogged(Participant participant) {
+        return participant.session.getBufferSize() > backlogBytes;
+    }
+
+    private TextMessage serialize(ObjectNode message) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            System.out.println("[ERROR] Failed to serialize presence message: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void sendFrame(String pageId, Participant participant, TextMessage frame) {
+        if (frame == null) {
+            return;
+        }
+        try {
+            participant.session.sendMessage(frame);
+        } catch (Exception e) {
+            // Closed, or too slow to keep up
+            disconnect(pageId, participant, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void disconnect(String pageId, Participant participant, CloseStatus status) {
+        leave(pageId, participant.sessionId);
+        if (participant.session != null && participant.session.isOpen()) {
+            try {
+                participant.session.close(status);
+            } catch (Exception e) {
+                // Already gone
+            }
+        }
+    }
+}
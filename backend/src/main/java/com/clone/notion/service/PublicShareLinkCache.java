@@ -0,0 +1,302 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.clone.notion.model.Page;
+import com.clone.notion.model.PageShare;
+import com.clone.notion.repository.PageRepository;
+import com.clone.notion.repository.PageShareRepository;
+
+/**
+ * Resolves public share links to a (share, page) snapshot without touching
+ * Mongo on the hot path.
+ *
+ * Lookups go through three layers:
+ *   1. a bounded LRU of resolved snapshots, dropped on revoke, expiry and page changes
+ *   2. a Bloom filter of every active public link, so malformed or guessed links
+ *      are rejected without a query
+ *   3. a short-lived negative cache for links that passed the filter but do not
+ *      resolve (filter false positives, revoked links)
+ *
+ * Links created on this instance are added to the filter right away; links
+ * created on other instances are picked up by a refresh every bloom-refresh-ms
+ * that adds the public shares created since the previous one. The filter is
+ * rebuilt from the page_shares collection less often, so revoked links
+ * eventually drop out of it. Until the first build it is not consulted.
+ */
+@Component
+public class PublicShareLinkCache {
+
+    // Matches PageShareService.generateShareLink()
+    private static final Pattern LINK_FORMAT = Pattern.compile("share_[0-9a-f]{12}");
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    // Refreshes look back this far past the last one, for clock skew between instances and slow inserts
+    private static final long REFRESH_OVERLAP_MILLIS = 5000;
+
+    /**
+     * A resolved public link. The page is shared between requests and must not be modified.
+     */
+    public record Snapshot(PageShare share, Page page, long loadedAtMillis) {
+
+        boolean isUsable(long nowMillis, long pageTtlMillis) {
+            Instant expiresAt = share.getExpiresAt();
+            return (expiresAt == null || expiresAt.toEpochMilli() > nowMillis)
+                && nowMillis - loadedAtMillis < pageTtlMillis;
+        }
+    }
+
+    private final PageShareRepository pageShareRepository;
+    private final PageRepository pageRepository;
+    private final MongoTemplate mongoTemplate;
+    private final int maxEntries;
+    private final long pageTtlMillis;
+    private final long negativeTtlMillis;
+    private final long expectedLinks;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<String, Snapshot> snapshots;
+    // Link -> time it was found not to resolve
+    private final LinkedHashMap<String, Long> misses;
+
+    private final Object bloomLock = new Object();
+    private volatile BloomFilter bloom;
+    // Links created while the filter is being rebuilt, added to the new filter before it is swapped in
+    private Set<String> addedDuringRebuild;
+    // Shares created before this are in the filter
+    private Instant refreshedThrough;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PublicShareLinkCache(PageShareRepository pageShareRepository,
+                                PageRepository pageRepository,
+                                MongoTemplate mongoTemplate,
+                                @Value("${shares.link-cache.max-entries:5000}") int maxEntries,
+                                @Value("${shares.link-cache.page-ttl-ms:30000}") long pageTtlMillis,
+                                @Value("${shares.link-cache.negative-ttl-ms:60000}") long negativeTtlMillis,
+                                @Value("${shares.link-cache.expected-links:100000}") long expectedLinks) {
+        this.pageShareRepository = pageShareRepository;
+        this.pageRepository = pageRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.maxEntries = maxEntries;
+        this.pageTtlMillis = pageTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.expectedLinks = expectedLinks;
+        this.snapshots = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > PublicShareLinkCache.this.maxEntries;
+            }
+        };
+        this.misses = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > PublicShareLinkCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Optional<Snapshot> resolve(String shareLink) {
+        if (shareLink == null || !LINK_FORMAT.matcher(shareLink).matches()) {
+            rejected.incrementAndGet();
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (snapshots) {
+            Snapshot cached = snapshots.get(shareLink);
+            if (cached != null && cached.isUsable(now, pageTtlMillis)) {
+                hits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+
+        BloomFilter filter = bloom;
+        if (filter != null && !filter.mightContain(shareLink)) {
+            rejected.incrementAndGet();
+            return Optional.empty();
+        }
+        synchronized (misses) {
+            Long missedAt = misses.get(shareLink);
+            if (missedAt != null) {
+                if (now - missedAt < negativeTtlMillis) {
+                    rejected.incrementAndGet();
+                    return Optional.empty();
+                }
+                misses.remove(shareLink);
+            }
+        }
+
+        loads.incrementAndGet();
+        long observedEpoch = epoch.get();
+        Snapshot snapshot = load(shareLink, now);
+        if (snapshot == null) {
+            synchronized (misses) {
+                misses.put(shareLink, now);
+            }
+            return Optional.empty();
+        }
+        synchronized (snapshots) {
+            // Skip caching if a revoke or page change happened while loading
+            if (epoch.get() == observedEpoch) {
+                snapshots.put(shareLink, snapshot);
+            }
+        }
+        return Optional.of(snapshot);
+    }
+
+    private Snapshot load(String shareLink, long now) {
+        PageShare share = pageShareRepository.findByShareLinkAndActiveTrue(shareLink).orElse(null);
+        if (share == null || (share.getExpiresAt() != null && share.getExpiresAt().toEpochMilli() <= now)) {
+            return null;
+        }
+        Page page = pageRepository.findById(share.getPageId()).orElse(null);
+        if (page == null) {
+            return null;
+        }
+        return new Snapshot(share, page, now);
+    }
+
+    /**
+     * Register a newly created link so the filter and negative cache let it through.
+     */
+    public void add(String shareLink) {
+        synchronized (bloomLock) {
+            if (bloom != null) {
+                bloom.put(shareLink);
+            }
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(shareLink);
+            }
+        }
+        synchronized (misses) {
+            misses.remove(shareLink);
+        }
+    }
+
+    public void invalidateLink(String shareLink) {
+        synchronized (snapshots) {
+            epoch.incrementAndGet();
+            snapshots.remove(shareLink);
+        }
+    }
+
+    /**
+     * Drop every snapshot of the page, e.g. after its content changed.
+     */
+    public void invalidatePage(String pageId) {
+        synchronized (snapshots) {
+            epoch.incrementAndGet();
+            snapshots.values().removeIf(snapshot -> snapshot.share().getPageId().equals(pageId));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (snapshots) {
+            epoch.incrementAndGet();
+            snapshots.clear();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int cached;
+        synchronized (snapshots) {
+            cached = snapshots.size();
+        }
+        return Map.of(
+            "cachedLinks", cached,
+            "hits", hits.get(),
+            "loads", loads.get(),
+            "rejected", rejected.get(),
+            "bloomReady", bloom != null
+        );
+    }
+
+    /**
+     * Add public links created since the last refresh, including those created on other instances.
+     */
+    @Scheduled(fixedDelayString = "${shares.link-cache.bloom-refresh-ms:2000}")
+    public void refreshBloomFilter() {
+        Instant since;
+        synchronized (bloomLock) {
+            since = refreshedThrough;
+        }
+        if (since == null) {
+            // Not built yet; the build reads everything
+            return;
+        }
+        try {
+            Instant startedAt = Instant.now();
+            Query query = new Query(Criteria.where("isPublic").is(true).and("active").is(true)
+                .and("createdAt").gte(since.minusMillis(REFRESH_OVERLAP_MILLIS)));
+            query.fields().include("shareLink");
+            for (PageShare share : mongoTemplate.find(query, PageShare.class)) {
+                if (share.getShareLink() != null) {
+                    add(share.getShareLink());
+                }
+            }
+            markRefreshed(startedAt);
+        } catch (Exception e) {
+            System.out.println("[ERROR] Public share link filter refresh failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${shares.link-cache.bloom-initial-delay-ms:5000}",
+               fixedDelayString = "${shares.link-cache.bloom-rebuild-ms:600000}")
+    public void rebuildBloomFilter() {
+        try {
+            Instant startedAt = Instant.now();
+            synchronized (bloomLock) {
+                addedDuringRebuild = new HashSet<>();
+            }
+
+            Query query = new Query(Criteria.where("isPublic").is(true).and("active").is(true)
+                .and("shareLink").ne(null));
+            query.fields().include("shareLink");
+
+            long count = mongoTemplate.count(query, PageShare.class);
+            // Leave headroom for links created until the next rebuild
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedLinks, count * 2), BLOOM_FALSE_POSITIVE_RATE);
+            try (Stream<PageShare> shares = mongoTemplate.stream(query, PageShare.class)) {
+                shares.forEach(share -> rebuilt.put(share.getShareLink()));
+            }
+
+            synchronized (bloomLock) {
+                addedDuringRebuild.forEach(rebuilt::put);
+                addedDuringRebuild = null;
+                bloom = rebuilt;
+            }
+            markRefreshed(startedAt);
+            System.out.println("[DEBUG] Public share link filter rebuilt with " + count + " links");
+        } catch (Exception e) {
+            synchronized (bloomLock) {
+                addedDuringRebuild = null;
+            }
+            System.out.println("[ERROR] Public share link filter rebuild failed: " + e.getMessage());
+        }
+    }
+
+    private void markRefreshed(Instant through) {
+        synchronized (bloomLock) {
+            if (refreshedThrough == null || through.isAfter(refreshedThrough)) {
+                refreshedThrough = through;
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.clone.notion.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.PageShare;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Deactivates shares once their expiresAt passes.
+ *
+ * Shares expiring within the wheel horizon are held in a hashed timing wheel
+ * that ticks every shares.expiry.tick-ms (a second by default), so they are
+ * deactivated within a tick of expiring.
+ * A periodic sweep deactivates anything the wheel missed (restarts, shares
+ * created on other instances) with a single updateMulti and loads the next
+ * horizon's worth of upcoming expiries into the wheel.
+ */
+@Service
+public class ShareExpiryService {
+
+    private static final int WHEEL_SIZE = 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final PermissionCache permissionCache;
+    private final PublicShareLinkCache publicShareLinkCache;
+
+    // Share id -> scheduled deadline, so a share is only put on the wheel once
+    private final Map<String, Instant> scheduled = new HashMap<>();
+    private final HashedTimingWheel<String> wheel;
+
+    @Value("${shares.expiry.enabled:true}")
+    private boolean enabled;
+
+    public ShareExpiryService(MongoTemplate mongoTemplate,
+                              PermissionCache permissionCache,
+                              PublicShareLinkCache publicShareLinkCache,
+                              // The wheel's slots must be as wide as the interval tick() runs at
+                              @Value("${shares.expiry.tick-ms:1000}") long tickMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.permissionCache = permissionCache;
+        this.publicShareLinkCache = publicShareLinkCache;
+        this.wheel = new HashedTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    /**
+     * Put a freshly created or updated share on the wheel if it expires within the horizon.
+     * Later expiries are picked up by the sweep.
+     */
+    public void schedule(PageShare share) {
+        if (share == null || share.getId() == null || share.getExpiresAt() == null || !share.isActive()) {
+            return;
+        }
+        long deadline = share.getExpiresAt().toEpochMilli();
+        if (deadline - System.currentTimeMillis() > wheel.horizonMillis()) {
+            return;
+        }
+        synchronized (wheel) {
+            if (!share.getExpiresAt().equals(scheduled.put(share.getId(), share.getExpiresAt()))) {
+                wheel.schedule(share.getId(), deadline);
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${shares.expiry.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+            due.forEach(scheduled::remove);
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            long deactivated = deactivate(Criteria.where("_id").in(due));
+            if (deactivated > 0) {
+                System.out.println("[DEBUG] Share expiry: deactivated " + deactivated + " shares");
+            }
+        } catch (Exception e) {
+            System.out.println("[ERROR] Share expiry tick failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${shares.expiry.initial-delay-ms:10000}",
+               fixedDelayString = "${shares.expiry.sweep-interval-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long deactivated = deactivateExpiredShares();
+            int upcoming = loadUpcoming();
+            System.out.println("[DEBUG] Share expiry sweep: deactivated " + deactivated
+                + ", scheduled " + upcoming + " upcoming");
+        } catch (Exception e) {
+            System.out.println("[ERROR] Share expiry sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deactivate every active share whose expiresAt has passed. Returns the number deactivated.
+     */
+    public long deactivateExpiredShares() {
+        return deactivate(null);
+    }
+
+    private long deactivate(Criteria scope) {
+        Instant now = Instant.now();
+        Criteria expired = Criteria.where("active").is(true).and("expiresAt").lte(now);
+        Criteria criteria = scope == null ? expired : new Criteria().andOperator(scope, expired);
+
+        // Narrow read of what is about to expire, only needed for cache invalidation
+        Query affectedQuery = new Query(criteria);
+        affectedQuery.fields().include("pageId").include("sharedWithUserId").include("isPublic").include("shareLink");
+        List<PageShare> affected = mongoTemplate.find(affectedQuery, PageShare.class);
+        if (affected.isEmpty()) {
+            return 0;
+        }
+
+        UpdateResult result = mongoTemplate.updateMulti(new Query(criteria),
+            new Update().set("active", false).set("updatedAt", now), PageShare.class);
+
+        for (PageShare share : affected) {
+            if (share.isPublic()) {
+                permissionCache.invalidatePage(share.getPageId());
+                publicShareLinkCache.invalidateLink(share.getShareLink());
+            } else {
+                permissionCache.invalidate(share.getPageId(), share.getSharedWithUserId());
+            }
+        }
+        return result.getModifiedCount();
+    }
+
+    private int loadUpcoming() {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("active").is(true)
+            .and("expiresAt").gt(now).lte(now.plusMillis(wheel.horizonMillis())));
+        query.fields().include("expiresAt").include("active");
+
+        List<PageShare> upcoming = mongoTemplate.find(query, PageShare.class);
+        upcoming.forEach(this::schedule);
+        return upcoming.size();
+    }
+}
@@ -0,0 +1,172 @@
+package com.clone.notion.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.payload.request.SyncContentRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+/**
+ * Reads collaborative content payloads in one streaming pass, straight into
+ * Block objects, without building an intermediate map of the whole body.
+ * Unknown fields are skipped. The body size, number of blocks and length of
+ * any string are bounded and checked while reading, so an oversized payload
+ * is rejected before it is fully buffered.
+ */
+@Service
+public class SyncPayloadReader {
+
+    private static final int MAX_NESTING_DEPTH = 32;
+
+    private final JsonFactory jsonFactory;
+    private final long maxBytes;
+    private final int maxBlocks;
+
+    public SyncPayloadReader(@Value("${collaborative.payload.max-bytes:2097152}") long maxBytes,
+                             @Value("${collaborative.payload.max-blocks:5000}") int maxBlocks,
+                             @Value("${collaborative.payload.max-content-chars:100000}") int maxContentChars) {
+        this.maxBytes = maxBytes;
+        this.maxBlocks = maxBlocks;
+        this.jsonFactory = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                .maxStringLength(maxContentChars)
+                .maxNestingDepth(MAX_NESTING_DEPTH)
+                .build())
+            .build();
+    }
+
+    /**
+     * @param contentLength the declared body length, or -1 if unknown
+     * @throws IllegalArgumentException if the body is malformed or over a limit
+     */
+    public SyncContentRequest read(InputStream body, long contentLength) throws IOException {
+        if (contentLength > maxBytes) {
+            throw new IllegalArgumentException("Payload larger than " + maxBytes + " bytes");
+        }
+        try (JsonParser parser = jsonFactory.createParser(new LimitedInputStream(body, maxBytes))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            SyncContentRequest request = new SyncContentRequest();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "title" -> request.setTitle(readText(parser, field));
+                    case "resolution" -> request.setResolution(readText(parser, field));
+                    case "blocks" -> request.setBlocks(readBlocks(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed payload: " + e.getOriginalMessage());
+        }
+    }
+
+    private List<Block> readBlocks(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("blocks must be an array");
+        }
+        List<Block> blocks = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Every block must be an object");
+            }
+            if (blocks.size() == maxBlocks) {
+                throw new IllegalArgumentException("At most " + maxBlocks + " blocks per page");
+            }
+            blocks.add(readBlock(parser));
+        }
+        return blocks;
+    }
+
+    private Block readBlock(JsonParser parser) throws IOException {
+        Block block = new Block();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> block.setId(readText(parser, field));
+                case "type" -> {
+                    String type = readText(parser, field);
+                    if (type != null) {
+                        block.setType(type);
+                    }
+                }
+                case "content" -> block.setContent(readText(parser, field));
+                case "checked" -> block.setChecked(parser.currentToken() == JsonToken.VALUE_NULL
+                    ? null : parser.getValueAsBoolean());
+                default -> parser.skipChildren();
+            }
+        }
+        return block;
+    }
+
+    private static String readText(JsonParser parser, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new IllegalArgumentException(field + " must be a string");
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Fails the read once more than the limit has been consumed, for bodies without a Content-Length.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long consumed;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) {
+            consumed += bytes;
+            if (consumed > limit) {
+                throw new IllegalArgumentException("Payload larger than " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.clone.notion.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.clone.notion.model.User;
+import com.clone.notion.repository.UserRepository;
+
+/**
+ * Bounded LRU cache of username -> user id, used to resolve @mentions.
+ *
+ * Unknown usernames are cached as well, for mentions.username-cache.negative-ttl-ms,
+ * so repeated mentions of a typo do not hit the database while a user who
+ * registers through another instance can be mentioned here soon after. Cache
+ * misses for a whole batch of usernames are loaded with a single $in query.
+ * Entries are dropped whenever a user document is saved or deleted.
+ */
+@Component
+public class UsernameCache extends AbstractMongoEventListener<User> {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long negativeTtlMillis;
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<String, String> entries;
+    // Username -> time it was found not to exist. Guarded by entries
+    private final LinkedHashMap<String, Long> misses;
+
+    public UsernameCache(UserRepository userRepository,
+                         @Value("${mentions.username-cache.max-entries:10000}") int maxEntries,
+                         @Value("${mentions.username-cache.negative-ttl-ms:30000}") long negativeTtlMillis) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > UsernameCache.this.maxEntries;
+            }
+        };
+        this.misses = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > UsernameCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Ids of the given usernames. Usernames that do not exist are left out of the result.
+     */
+    public Map<String, String> resolve(Collection<String> usernames) {
+        Map<String, String> resolved = new HashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (String username : usernames) {
+                String cached = entries.get(username);
+                if (cached != null) {
+                    resolved.put(username, cached);
+                    continue;
+                }
+                Long missedAt = misses.get(username);
+                if (missedAt == null || now - missedAt >= negativeTtlMillis) {
+                    misses.remove(username);
+                    uncached.add(username);
+                }
+            }
+        }
+        if (uncached.isEmpty()) {
+            return resolved;
+        }
+
+        long observedEpoch = epoch.get();
+        Map<String, String> loaded = new HashMap<>();
+        for (User user : userRepository.findIdsByUsernameIn(uncached)) {
+            loaded.put(user.getUsername(), user.getId());
+        }
+        resolved.putAll(loaded);
+
+        synchronized (entries) {
+            // Skip caching if a user changed while loading
+            if (epoch.get() == observedEpoch) {
+                for (String username : uncached) {
+                    String userId = loaded.get(username);
+                    if (userId != null) {
+                        entries.put(username, userId);
+                    } else {
+                        misses.put(username, now);
+                    }
+                }
+            }
+        }
+        return resolved;
+    }
+
+    public void invalidate(String username) {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.remove(username);
+            misses.remove(username);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.clear();
+            misses.clear();
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        // Drop the current name (it may be cached as missing) and any old name still mapped to the id
+        User user = event.getSource();
+        if (user.getUsername() != null && user.getId() != null) {
+            synchronized (entries) {
+                epoch.incrementAndGet();
+                entries.values().removeIf(user.getId()::equals);
+                entries.remove(user.getUsername());
+                misses.remove(user.getUsername());
+            }
+        } else {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        // Delete events only carry the query, not the deleted usernames
+        invalidateAll();
+    }
+}
@@ -0,0 +1,64 @@
+package com.clone.notion.websocket;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.clone.notion.security.services.UserDetailsImpl;
+import com.clone.notion.service.PageShareService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Admits a presence socket only for users who can view the requested page.
+ * The upgrade request has already passed the JWT filter (header or cookie),
+ * so the user comes from the security context.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String PAGE_ID = "pageId";
+    static final String USER_ID = "userId";
+    static final String USERNAME = "username";
+
+    private final PageShareService pageShareService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl user)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        String pageId = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(PAGE_ID);
+        if (pageId == null || pageId.isBlank()) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        if (!pageShareService.hasAccess(pageId, user.getId(), "view")) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+
+        attributes.put(PAGE_ID, pageId);
+        attributes.put(USER_ID, user.getId());
+        attributes.put(USERNAME, user.getUsername());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+}
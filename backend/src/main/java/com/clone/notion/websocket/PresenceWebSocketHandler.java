@@ -0,0 +1,55 @@
+package com.clone.notion.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.clone.notion.service.PresenceService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One socket per open page: /ws/presence?pageId=... . Roster state lives in PresenceService.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceWebSocketHandler extends TextWebSocketHandler {
+
+    private final PresenceService presenceService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        boolean joined = presenceService.join(pageId(session), session,
+            (String) session.getAttributes().get(PresenceHandshakeInterceptor.USER_ID),
+            (String) session.getAttributes().get(PresenceHandshakeInterceptor.USERNAME));
+        if (!joined) {
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(message.getPayload());
+        } catch (Exception e) {
+            // Ignore malformed messages rather than dropping the connection
+            return;
+        }
+        presenceService.handleMessage(pageId(session), session.getId(), payload);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        presenceService.leave(pageId(session), session.getId());
+    }
+
+    private static String pageId(WebSocketSession session) {
+        return (String) session.getAttributes().get(PresenceHandshakeInterceptor.PAGE_ID);
+    }
+}
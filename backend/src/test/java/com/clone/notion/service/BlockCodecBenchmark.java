@@ -0,0 +1,143 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.clone.notion.model.Block;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Size and speed of BlockCodec against the JSON the blocks would otherwise be
+ * stored as, on seeded synthetic pages. Skipped in normal builds; run with
+ *
+ *   mvn test -Dtest=BlockCodecBenchmark -Dbenchmark=true
+ *
+ * Each format is warmed up, then timed over several rounds; the median round
+ * is reported, per page. Prints a markdown table.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BlockCodecBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 21;
+    private static final TypeReference<List<Block>> BLOCK_LIST = new TypeReference<>() {
+    };
+
+    private record Format(String name, Function<List<Block>, byte[]> encode, Function<byte[], List<Block>> decode) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareFormats() {
+        Random random = new Random(2024);
+        int[][] corpora = {{200, 20}, {100, 100}, {20, 1000}};
+        List<Format> formats = List.of(
+            new Format("json", this::json, this::fromJson),
+            new Format("json + deflate", blocks -> deflate(json(blocks)), bytes -> fromJson(inflate(bytes))),
+            new Format("codec, uncompressed", blocks -> BlockCodec.encode(blocks, Deflater.NO_COMPRESSION), BlockCodec::decode),
+            new Format("codec, fastest", blocks -> BlockCodec.encode(blocks, Deflater.BEST_SPEED), BlockCodec::decode),
+            new Format("codec, default", blocks -> BlockCodec.encode(blocks, Deflater.DEFAULT_COMPRESSION), BlockCodec::decode),
+            new Format("codec, smallest", blocks -> BlockCodec.encode(blocks, Deflater.BEST_COMPRESSION), BlockCodec::decode));
+
+        StringBuilder table = new StringBuilder()
+            .append("| Pages x blocks | Format | Bytes/page | vs JSON | Encode us/page | Decode us/page |\n")
+            .append("|---|---|---|---|---|---|\n");
+        for (int[] corpus : corpora) {
+            List<List<Block>> pages = new ArrayList<>();
+            for (int i = 0; i < corpus[0]; i++) {
+                pages.add(SyntheticPages.page(random, corpus[1]));
+            }
+            long jsonBytes = pages.stream().mapToLong(page -> json(page).length).sum();
+            for (Format format : formats) {
+                long bytes = 0;
+                for (List<Block> page : pages) {
+                    byte[] encoded = format.encode().apply(page);
+                    assertEquals(page, format.decode().apply(encoded), format.name() + " round trip");
+                    bytes += encoded.length;
+                }
+                double[] timings = time(format, pages);
+                table.append(String.format("| %d x %d | %s | %,d | %.1f%% | %.1f | %.1f |%n",
+                    corpus[0], corpus[1], format.name(), bytes / pages.size(), 100.0 * bytes / jsonBytes,
+                    timings[0], timings[1]));
+            }
+        }
+        System.out.println(table);
+    }
+
+    /**
+     * Median encode and decode time per page, in microseconds.
+     */
+    private double[] time(Format format, List<List<Block>> pages) {
+        List<byte[]> encoded = pages.stream().map(format.encode()).toList();
+        double[] encodeMicros = new double[MEASURED_ROUNDS];
+        double[] decodeMicros = new double[MEASURED_ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < MEASURED_ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (List<Block> page : pages) {
+                format.encode().apply(page);
+            }
+            long encodedAt = System.nanoTime();
+            for (byte[] bytes : encoded) {
+                format.decode().apply(bytes);
+            }
+            long decodedAt = System.nanoTime();
+            if (round >= 0) {
+                encodeMicros[round] = (encodedAt - started) / 1000.0 / pages.size();
+                decodeMicros[round] = (decodedAt - encodedAt) / 1000.0 / pages.size();
+            }
+        }
+        Arrays.sort(encodeMicros);
+        Arrays.sort(decodeMicros);
+        return new double[] {encodeMicros[MEASURED_ROUNDS / 2], decodeMicros[MEASURED_ROUNDS / 2]};
+    }
+
+    private byte[] json(List<Block> blocks) {
+        try {
+            return objectMapper.writeValueAsBytes(blocks);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Block> fromJson(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, BLOCK_LIST);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(bytes);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BlockCodecTest {
+
+    private static final int[] LEVELS = {
+        Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION
+    };
+
+    @Test
+    void roundTripsSyntheticPagesAtEveryLevel() {
+        Random random = new Random(42);
+        for (int blockCount : new int[] {0, 1, 10, 100, 1000}) {
+            List<Block> blocks = SyntheticPages.page(random, blockCount);
+            for (int level : LEVELS) {
+                assertEquals(blocks, BlockCodec.decode(BlockCodec.encode(blocks, level)),
+                    blockCount + " blocks at level " + level);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsMissingFieldsAndUnicode() {
+        List<Block> blocks = List.of(
+            Block.builder().type(BlockType.PARAGRAPH).build(),
+            Block.builder().id("a").type(BlockType.TODO).checked(false).build(),
+            Block.builder().id("b").type(BlockType.TODO).content("").checked(true).build(),
+            Block.builder().id("c").type(BlockType.CODE).content("naïve 日本語 🚀\n\ttab").build(),
+            Block.builder().id("d").type(BlockType.QUOTE).content("x".repeat(100_000)).build());
+
+        assertEquals(blocks, BlockCodec.decode(BlockCodec.encode(blocks)));
+    }
+
+    @Test
+    void storesBlocksWithoutTypeAsParagraph() {
+        Block untyped = new Block();
+        untyped.setId("a");
+
+        assertEquals(BlockType.PARAGRAPH, BlockCodec.decode(BlockCodec.encode(List.of(untyped))).get(0).getType());
+    }
+
+    @Test
+    void isSmallerThanJsonForTypicalPages() throws Exception {
+        List<Block> blocks = SyntheticPages.page(new Random(7), 300);
+        int json = new ObjectMapper().writeValueAsBytes(blocks).length;
+
+        assertTrue(BlockCodec.encode(blocks).length * 3 < json);
+    }
+
+    @Test
+    void rejectsInputItDidNotProduce() {
+        byte[] encoded = BlockCodec.encode(SyntheticPages.page(new Random(1), 50), Deflater.NO_COMPRESSION);
+
+        assertThrows(IllegalArgumentException.class, () -> BlockCodec.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> BlockCodec.decode(new byte[] {9, 0}));
+        assertThrows(IllegalArgumentException.class, () -> BlockCodec.decode(new byte[] {1, 7}));
+        assertThrows(IllegalArgumentException.class, () -> BlockCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+
+        // Stored, one block of one type whose name claims to be 256 MB long
+        byte[] oversized = {1, 0, 1, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F};
+        assertThrows(IllegalArgumentException.class, () -> BlockCodec.decode(oversized));
+    }
+}
@@ -0,0 +1,152 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockType;
+import com.clone.notion.model.PageVersion;
+
+class BlockDiffTest {
+
+    @Test
+    void appendedBlocksKeepTheOrderImplied() {
+        List<Block> before = blocks("a", "b");
+        List<Block> after = blocks("a", "b", "x");
+
+        PageVersion delta = roundTrip(before, after);
+
+        assertNull(delta.getBlockOrder());
+        assertEquals(List.of(block("x")), delta.getChangedBlocks());
+    }
+
+    @Test
+    void insertInTheMiddleStoresTheOrder() {
+        List<Block> after = blocks("a", "x", "b");
+
+        PageVersion delta = roundTrip(blocks("a", "b"), after);
+
+        assertEquals(List.of("a", "x", "b"), delta.getBlockOrder());
+    }
+
+    @Test
+    void removedBlocksKeepTheOrderImplied() {
+        PageVersion delta = roundTrip(blocks("a", "b", "c"), blocks("a", "c"));
+
+        assertNull(delta.getBlockOrder());
+        assertEquals(List.of("b"), delta.getRemovedBlockIds());
+        assertEquals(List.of(), delta.getChangedBlocks());
+    }
+
+    @Test
+    void editsCarryOnlyTheChangedBlocks() {
+        List<Block> after = blocks("a", "b", "c");
+        after.set(1, Block.builder().id("b").type(BlockType.TODO).content("b").checked(true).build());
+
+        PageVersion delta = roundTrip(blocks("a", "b", "c"), after);
+
+        assertNull(delta.getBlockOrder());
+        assertEquals(List.of(after.get(1)), delta.getChangedBlocks());
+    }
+
+    @Test
+    void movingOneBlockReportsOnlyThatBlock() {
+        List<Block> before = blocks("a", "b", "c", "d", "e");
+        List<Block> after = blocks("a", "c", "d", "e", "b");
+
+        BlockDiff diff = BlockDiff.compute(before, after);
+        PageVersion delta = roundTrip(before, after);
+
+        assertEquals(List.of("b"), diff.moved);
+        assertEquals(List.of(), delta.getChangedBlocks());
+        assertEquals(List.of("a", "c", "d", "e", "b"), delta.getBlockOrder());
+    }
+
+    @Test
+    void reversingMovesAllButOneBlock() {
+        List<Block> before = blocks("a", "b", "c", "d");
+        List<Block> after = blocks("d", "c", "b", "a");
+
+        assertEquals(3, BlockDiff.compute(before, after).moved.size());
+        roundTrip(before, after);
+    }
+
+    @Test
+    void mixedChangesRoundTrip() {
+        List<Block> after = blocks("x", "c", "a", "y");
+        after.set(1, Block.builder().id("c").type(BlockType.QUOTE).content("edited").build());
+
+        roundTrip(blocks("a", "b", "c", "d"), after);
+    }
+
+    @Test
+    void randomEditsRoundTrip() {
+        Random random = new Random(11);
+        for (int run = 0; run < 500; run++) {
+            List<Block> before = SyntheticPages.page(random, random.nextInt(40));
+            List<Block> after = mutate(random, before);
+            roundTrip(before, after);
+        }
+    }
+
+    @Test
+    void blocksWithoutUsableIdsAreNotDiffed() {
+        List<Block> withoutId = List.of(Block.builder().type(BlockType.PARAGRAPH).content("a").build());
+
+        assertNull(BlockDiff.compute(withoutId, blocks("a")));
+        assertNull(BlockDiff.compute(blocks("a"), blocks("a", "a")));
+    }
+
+    /**
+     * Asserts that applying the stored delta to before gives after, and returns the delta.
+     */
+    private static PageVersion roundTrip(List<Block> before, List<Block> after) {
+        BlockDiff diff = BlockDiff.compute(before, after);
+        assertNotNull(diff);
+        PageVersion delta = new PageVersion();
+        PageVersionService.writeDelta(delta, diff, after);
+        assertEquals(after, PageVersionService.applyDelta(before, delta));
+        return delta;
+    }
+
+    private static List<Block> mutate(Random random, List<Block> before) {
+        List<Block> after = new ArrayList<>(before);
+        int changes = 1 + random.nextInt(6);
+        for (int i = 0; i < changes; i++) {
+            int kind = random.nextInt(4);
+            if (after.isEmpty() || kind == 0) {
+                after.add(random.nextInt(after.size() + 1), block("new-" + i));
+            } else if (kind == 1) {
+                after.remove(random.nextInt(after.size()));
+            } else if (kind == 2) {
+                int index = random.nextInt(after.size());
+                Block edited = Block.builder().id(after.get(index).getId()).type(BlockType.PARAGRAPH)
+                    .content("edited " + i).build();
+                after.set(index, edited);
+            } else {
+                Block moved = after.remove(random.nextInt(after.size()));
+                after.add(random.nextInt(after.size() + 1), moved);
+            }
+        }
+        return after;
+    }
+
+    private static List<Block> blocks(String... ids) {
+        List<Block> blocks = new ArrayList<>();
+        for (String id : ids) {
+            blocks.add(block(id));
+        }
+        return blocks;
+    }
+
+    private static Block block(String id) {
+        return Block.builder().id(id).type(BlockType.PARAGRAPH).content(id).build();
+    }
+}
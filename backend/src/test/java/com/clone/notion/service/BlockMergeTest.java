@@ -0,0 +1,243 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockOperation;
+import com.clone.notion.model.BlockType;
+import com.clone.notion.model.OperationType;
+
+class BlockMergeTest {
+
+    // DELETE operations from the log, by deleted block id
+    private final Map<String, BlockOperation> log = new HashMap<>();
+
+    @Test
+    void insertAfterConcurrentlyDeletedBlockGoesAfterItsPredecessor() {
+        logDeletion("b", "a");
+        BlockMerge merge = merge("a", "c");
+
+        BlockOperation applied = merge.apply(insert("x", "b"));
+
+        assertEquals(List.of("a", "x", "c"), ids(merge));
+        assertEquals("a", applied.getAfterBlockId());
+    }
+
+    @Test
+    void insertFollowsChainedDeletes() {
+        logDeletion("c", "b");
+        logDeletion("b", "a");
+        BlockMerge merge = merge("a", "d");
+
+        merge.apply(insert("x", "c"));
+
+        assertEquals(List.of("a", "x", "d"), ids(merge));
+    }
+
+    @Test
+    void insertAfterBlockDeletedAtTheTopGoesToTheTop() {
+        logDeletion("a", null);
+        BlockMerge merge = merge("b");
+
+        BlockOperation applied = merge.apply(insert("x", "a"));
+
+        assertEquals(List.of("x", "b"), ids(merge));
+        assertNull(applied.getAfterBlockId());
+    }
+
+    @Test
+    void insertAfterBlockDeletedEarlierInTheBatchIsReanchored() {
+        BlockMerge merge = merge("a", "b", "c");
+
+        BlockOperation deleted = merge.apply(op(OperationType.DELETE_BLOCK, "d1", "b"));
+        merge.apply(insert("x", "b"));
+
+        assertEquals("a", deleted.getAfterBlockId());
+        assertEquals(List.of("a", "x", "c"), ids(merge));
+    }
+
+    @Test
+    void anchorChainLongerThanTheHopLimitFallsBackToTheEnd() {
+        // d39 -> d38 -> ... -> d0 -> a; from d30 reaching a takes exactly MAX_ANCHOR_HOPS lookups
+        logDeletion("d0", "a");
+        for (int i = 1; i < 40; i++) {
+            logDeletion("d" + i, "d" + (i - 1));
+        }
+
+        BlockMerge withinLimit = merge("a", "z");
+        withinLimit.apply(insert("x", "d30"));
+        assertEquals(List.of("a", "x", "z"), ids(withinLimit));
+
+        BlockMerge pastLimit = merge("a", "z");
+        pastLimit.apply(insert("x", "d39"));
+        assertEquals(List.of("a", "z", "x"), ids(pastLimit));
+    }
+
+    @Test
+    void insertAfterUnknownAnchorGoesToTheEnd() {
+        BlockMerge merge = merge("a", "b");
+
+        BlockOperation applied = merge.apply(insert("x", "never-existed"));
+
+        assertEquals(List.of("a", "b", "x"), ids(merge));
+        assertEquals("b", applied.getAfterBlockId());
+    }
+
+    @Test
+    void moveAfterConcurrentlyDeletedBlockIsReanchored() {
+        logDeletion("b", "a");
+        BlockMerge merge = merge("a", "c", "d");
+
+        BlockOperation applied = merge.apply(move("d", "b"));
+
+        assertEquals(List.of("a", "d", "c"), ids(merge));
+        assertEquals("a", applied.getAfterBlockId());
+    }
+
+    @Test
+    void operationsOnVanishedBlocksAreDropped() {
+        BlockMerge merge = merge("a", "b");
+
+        assertNull(merge.apply(update("gone", "text")));
+        assertNull(merge.apply(move("gone", "a")));
+        assertNull(merge.apply(op(OperationType.DELETE_BLOCK, "d1", "gone")));
+        assertEquals(List.of("a", "b"), ids(merge));
+    }
+
+    @Test
+    void retriedInsertOfAnExistingBlockIsDropped() {
+        BlockMerge merge = merge("a", "b");
+
+        assertNull(merge.apply(insert("b", "a")));
+        assertEquals(List.of("a", "b"), ids(merge));
+    }
+
+    @Test
+    void moveAfterItselfIsDropped() {
+        BlockMerge merge = merge("a", "b", "c");
+
+        assertNull(merge.apply(move("b", "b")));
+        assertEquals(List.of("a", "b", "c"), ids(merge));
+    }
+
+    @Test
+    void laterUpdatesAndTitlesWin() {
+        BlockMerge merge = merge("a");
+
+        merge.apply(update("a", "first"));
+        merge.apply(update("a", "second"));
+        merge.apply(BlockOperation.builder().id("t1").type(OperationType.SET_TITLE).title("One").build());
+        merge.apply(BlockOperation.builder().id("t2").type(OperationType.SET_TITLE).title("Two").build());
+
+        assertEquals("second", merge.getBlocks().get(0).getContent());
+        assertEquals("Two", merge.getTitle());
+    }
+
+    @Test
+    void updateLeavesFieldsItDoesNotSetUnchanged() {
+        List<Block> blocks = List.of(Block.builder().id("a").type(BlockType.TODO).content("task").checked(false).build());
+        BlockMerge merge = new BlockMerge(blocks, "Page", log::get);
+
+        merge.apply(BlockOperation.builder().id("u1").type(OperationType.UPDATE_BLOCK).blockId("a").checked(true).build());
+
+        Block block = merge.getBlocks().get(0);
+        assertEquals("task", block.getContent());
+        assertEquals(BlockType.TODO, block.getType());
+        assertEquals(true, block.getChecked());
+    }
+
+    @Test
+    void concurrentInsertsAfterTheSameAnchorPutTheLaterOneFirst() {
+        BlockMerge merge = merge("a", "b");
+
+        merge.apply(insert("x", "a"));
+        merge.apply(insert("y", "a"));
+
+        assertEquals(List.of("a", "y", "x", "b"), ids(merge));
+    }
+
+    @Test
+    void serverOnlyAndUntypedOperationsAreDropped() {
+        BlockMerge merge = merge("a");
+
+        assertNull(merge.apply(op(OperationType.REPLACE_DOCUMENT, "r1", null)));
+        assertNull(merge.apply(BlockOperation.builder().id("n1").blockId("a").build()));
+        assertEquals(List.of("a"), ids(merge));
+    }
+
+    @Test
+    void leavesTheCallersBlocksUntouched() {
+        List<Block> blocks = new ArrayList<>(List.of(block("a"), block("b")));
+        BlockMerge merge = new BlockMerge(blocks, "Page", log::get);
+
+        merge.apply(update("a", "changed"));
+        merge.apply(op(OperationType.DELETE_BLOCK, "d1", "b"));
+
+        assertEquals(2, blocks.size());
+        assertEquals("a", blocks.get(0).getContent());
+    }
+
+    private BlockMerge merge(String... blockIds) {
+        List<Block> blocks = new ArrayList<>();
+        for (String blockId : blockIds) {
+            blocks.add(block(blockId));
+        }
+        return new BlockMerge(blocks, "Page", log::get);
+    }
+
+    private void logDeletion(String blockId, String predecessorId) {
+        log.put(blockId, BlockOperation.builder()
+            .id("log-" + blockId)
+            .type(OperationType.DELETE_BLOCK)
+            .blockId(blockId)
+            .afterBlockId(predecessorId)
+            .build());
+    }
+
+    private static Block block(String id) {
+        return Block.builder().id(id).type(BlockType.PARAGRAPH).content(id).build();
+    }
+
+    private static BlockOperation insert(String blockId, String afterBlockId) {
+        return BlockOperation.builder()
+            .id("insert-" + blockId)
+            .type(OperationType.INSERT_BLOCK)
+            .block(block(blockId))
+            .afterBlockId(afterBlockId)
+            .build();
+    }
+
+    private static BlockOperation move(String blockId, String afterBlockId) {
+        return BlockOperation.builder()
+            .id("move-" + blockId)
+            .type(OperationType.MOVE_BLOCK)
+            .blockId(blockId)
+            .afterBlockId(afterBlockId)
+            .build();
+    }
+
+    private static BlockOperation update(String blockId, String content) {
+        return BlockOperation.builder()
+            .id("update-" + blockId + "-" + content)
+            .type(OperationType.UPDATE_BLOCK)
+            .blockId(blockId)
+            .content(content)
+            .build();
+    }
+
+    private static BlockOperation op(OperationType type, String id, String blockId) {
+        return BlockOperation.builder().id(id).type(type).blockId(blockId).build();
+    }
+
+    private static List<String> ids(BlockMerge merge) {
+        return merge.getBlocks().stream().map(Block::getId).toList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockOperation;
+import com.clone.notion.model.BlockType;
+import com.clone.notion.model.OperationLogEntry;
+import com.clone.notion.model.OperationType;
+import com.clone.notion.model.Page;
+import com.clone.notion.payload.response.OperationBatchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PageOperationServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private PageOperationService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new PageOperationService(mongoTemplate, mock(PageLinkService.class), mock(PageShareService.class),
+            mock(PresenceService.class), mock(PageVersionService.class), new ObjectMapper());
+        ReflectionTestUtils.setField(service, "maxBatchSize", 500);
+        ReflectionTestUtils.setField(service, "maxLogEntriesPerPage", 1000);
+        ReflectionTestUtils.setField(service, "maxAttempts", 5);
+    }
+
+    @Test
+    void rejectsOperationIdsRepeatedWithinABatch() {
+        List<BlockOperation> batch = List.of(update("op-1", "first"), update("op-1", "second"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.applyOperations("page", "user", null, batch));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void dropsOperationsAppliedByAnEarlierBatch() {
+        Page page = Page.builder().id("page").title("Page")
+            .blocks(List.of(Block.builder().id("a").type(BlockType.PARAGRAPH).content("before").build()))
+            .build();
+        when(mongoTemplate.findById("page", Page.class)).thenReturn(page);
+        // The log already holds op-1 from the client's first try
+        when(mongoTemplate.find(any(Query.class), eq(OperationLogEntry.class))).thenReturn(List.of(
+            OperationLogEntry.builder().pageId("page").revision(1).operations(List.of(update("op-1", "retried"))).build()));
+
+        OperationBatchResponse response = service.applyOperations("page", "user", null, List.of(update("op-1", "retried")));
+
+        assertEquals(List.of("op-1"), response.getDropped());
+        assertEquals(List.of(), response.getApplied());
+        verify(mongoTemplate, never()).insert(any(OperationLogEntry.class));
+    }
+
+    private static BlockOperation update(String id, String content) {
+        return BlockOperation.builder().id(id).type(OperationType.UPDATE_BLOCK).blockId("a").content(content).build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.clone.notion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockType;
+import com.clone.notion.model.PageVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PageVersionServiceTest {
+
+    // Versions of one page in insertion order, standing in for page_versions
+    private final List<PageVersion> stored = new ArrayList<>();
+    private PageVersionService service;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(any(PageVersion.class))).thenAnswer(invocation -> {
+            PageVersion version = invocation.getArgument(0);
+            version.setId("v" + version.getVersion());
+            stored.add(version);
+            return version;
+        });
+        when(mongoTemplate.findOne(any(Query.class), eq(PageVersion.class)))
+            .thenAnswer(invocation -> stored.isEmpty() ? null : stored.get(stored.size() - 1));
+        when(mongoTemplate.findAndReplace(any(Query.class), any(PageVersion.class)))
+            .thenAnswer(invocation -> stored.set(stored.size() - 1, invocation.getArgument(1)));
+        service = new PageVersionService(mongoTemplate, new ObjectMapper(), 20, 200, 60_000, 100);
+    }
+
+    @Test
+    void coalescedSaveIsRewrittenAgainstTheVersionBeforeIt() {
+        List<Block> first = List.of(block("a", "a"), block("b", "b"), block("c", "c"));
+        List<Block> second = List.of(block("a", "a"), block("c", "c"), block("x", "x"));
+        List<Block> third = List.of(block("c", "edited"), block("a", "a"), block("y", "y"));
+
+        service.record("page", "alice", "Page", first);
+        service.record("page", "bob", "Page", second);
+        // Same user within coalesce-ms: folds into version 2
+        service.record("page", "bob", "Renamed", third);
+
+        assertEquals(2, stored.size());
+        PageVersion folded = stored.get(1);
+        assertEquals(2, folded.getVersion());
+        assertFalse(folded.isSnapshot());
+        assertEquals("Renamed", folded.getTitle());
+        // Replayed from version 1, as the history does, not from the state it replaced
+        assertEquals(third, PageVersionService.applyDelta(BlockCodec.decode(stored.get(0).getPackedBlocks()), folded));
+    }
+
+    private static Block block(String id, String content) {
+        return Block.builder().id(id).type(BlockType.PARAGRAPH).content(content).build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.clone.notion.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import com.clone.notion.model.Block;
+import com.clone.notion.model.BlockType;
+
+/**
+ * Seeded, realistic-looking block lists: UUID ids, mostly paragraphs, prose
+ * drawn from a small vocabulary, some page links and checked todos.
+ */
+final class SyntheticPages {
+
+    private static final String[] WORDS = {
+        "the", "team", "roadmap", "release", "review", "meeting", "notes", "design", "draft", "customer",
+        "feedback", "backlog", "sprint", "migration", "database", "latency", "budget", "owner", "deadline",
+        "follow", "up", "with", "and", "for", "on", "next", "week", "after", "launch", "metrics", "onboarding",
+        "support", "ticket", "priority", "blocked", "done", "in", "progress", "question", "answer", "decision"
+    };
+    private static final BlockType[] TYPES = {
+        BlockType.PARAGRAPH, BlockType.PARAGRAPH, BlockType.PARAGRAPH, BlockType.PARAGRAPH,
+        BlockType.HEADING1, BlockType.HEADING2, BlockType.TODO, BlockType.TODO,
+        BlockType.BULLETED_LIST, BlockType.BULLETED_LIST, BlockType.NUMBERED, BlockType.QUOTE,
+        BlockType.CODE, BlockType.CALLOUT
+    };
+
+    private SyntheticPages() {
+    }
+
+    static List<Block> page(Random random, int blockCount) {
+        List<Block> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            BlockType type = TYPES[random.nextInt(TYPES.length)];
+            blocks.add(Block.builder()
+                .id(new UUID(random.nextLong(), random.nextLong()).toString())
+                .type(type)
+                .content(random.nextInt(20) == 0 ? "" : sentence(random, type))
+                .checked(type == BlockType.TODO ? random.nextBoolean() : null)
+                .build());
+        }
+        return blocks;
+    }
+
+    private static String sentence(Random random, BlockType type) {
+        int words = type == BlockType.HEADING1 || type == BlockType.HEADING2 ? 2 + random.nextInt(4) : 5 + random.nextInt(30);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(10) == 0) {
+            // Page link to a Mongo-style id
+            text.append(" [").append(WORDS[random.nextInt(WORDS.length)]).append("](")
+                .append(String.format("%024x", random.nextLong() & Long.MAX_VALUE)).append(")");
+        }
+        return text.toString();
+    }
+}
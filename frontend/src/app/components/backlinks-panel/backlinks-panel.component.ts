@@ -1,7 +1,7 @@
 import { Component, Input, OnChanges, SimpleChanges } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { Router } from '@angular/router';
-import { PageLinkApiService, PageLink } from '../../services/page-link-api.service';
+import { PageLinkApiService, BacklinkWithContext } from '../../services/page-link-api.service';
 
 @Component({
   selector: 'app-backlinks-panel',
@@ -13,7 +13,7 @@ import { PageLinkApiService, PageLink } from '../../services/page-link-api.servi
 export class BacklinksPanelComponent implements OnChanges {
   @Input() pageId!: string;
 
-  backlinks: any[] = [];
+  backlinks: BacklinkWithContext[] = [];
   loading = false;
 
   constructor(private pageLinkApi: PageLinkApiService, private router: Router) {}
@@ -26,9 +26,9 @@ export class BacklinksPanelComponent implements OnChanges {
 
   loadBacklinks() {
     this.loading = true;
-    this.pageLinkApi.getBacklinkPages(this.pageId).subscribe({
-      next: pages => {
-        this.backlinks = pages;
+    this.pageLinkApi.getBacklinksWithContext(this.pageId).subscribe({
+      next: backlinks => {
+        this.backlinks = backlinks;
         this.loading = false;
       },
       error: () => (this.loading = false)
@@ -19,6 +19,20 @@ export interface Comment {
   replies?: Comment[];
 }
 
+export interface MentionInboxEntry {
+  id: string;
+  userId: string;
+  commentId: string;
+  parentCommentId?: string;
+  pageId: string;
+  blockId?: string;
+  authorId: string;
+  authorUsername: string;
+  snippet: string;
+  read: boolean;
+  createdAt: string;
+}
+
 export interface CreateCommentRequest {
   content: string;
   blockId?: string;
@@ -36,12 +50,14 @@ export class CommentsService {
   private commentsSubject = new BehaviorSubject<Comment[]>([]);
   private commentCountSubject = new BehaviorSubject<number>(0);
   private unresolvedCommentsSubject = new BehaviorSubject<Comment[]>([]);
+  private commentEvents: EventSource | null = null;
 
   constructor(private http: HttpClient) {}
 
   initializeComments(pageId: string): void {
     this.currentPageId = pageId;
     this.loadComments();
+    this.watchCommentEvents(pageId);
   }
 
   getComments(): Observable<Comment[]> {
@@ -85,6 +101,29 @@ export class CommentsService {
     return this.http.get<Comment[]>('/api/comments/mentions');
   }
 
+  getMentionInbox(before?: string, unreadOnly = false): Observable<MentionInboxEntry[]> {
+    const params: Record<string, string> = { unreadOnly: String(unreadOnly) };
+    if (before) {
+      params['before'] = before;
+    }
+    return this.http.get<MentionInboxEntry[]>('/api/comments/mentions/inbox', { params });
+  }
+
+  getUnreadMentionCount(): Observable<number> {
+    return this.http.get<{ count: number }>('/api/comments/mentions/unread-count')
+      .pipe(map(response => response.count));
+  }
+
+  markMentionsRead(ids: string[]): Observable<number> {
+    return this.http.post<{ marked: number }>('/api/comments/mentions/read', { ids })
+      .pipe(map(response => response.marked));
+  }
+
+  markAllMentionsRead(): Observable<number> {
+    return this.http.post<{ marked: number }>('/api/comments/mentions/read-all', {})
+      .pipe(map(response => response.marked));
+  }
+
   getUnresolvedCommentsForPage(): Observable<Comment[]> {
     if (!this.currentPageId) {
       return new Observable(observer => observer.next([]));
@@ -117,6 +156,8 @@ export class CommentsService {
   }
 
   clearComments(): void {
+    this.commentEvents?.close();
+    this.commentEvents = null;
     this.currentPageId = null;
     this.commentsSubject.next([]);
     this.commentCountSubject.next(0);
@@ -139,6 +180,19 @@ export class CommentsService {
       });
   }
 
+  // Server pushes comment changes for the page; reload instead of polling
+  private watchCommentEvents(pageId: string): void {
+    this.commentEvents?.close();
+    this.commentEvents = new EventSource(`/api/comments/page/${pageId}/events`, { withCredentials: true });
+    ['comment-created', 'comment-resolved', 'comment-deleted', 'comments-cleared', 'comments-resync'].forEach(type => {
+      this.commentEvents!.addEventListener(type, () => {
+        if (this.currentPageId === pageId) {
+          this.loadComments();
+        }
+      });
+    });
+  }
+
   private updateCommentCount(comments: Comment[]): void {
     const count = comments.length;
     this.commentCountSubject.next(count);
@@ -14,6 +14,18 @@ export interface PageLink {
   position?: number;
 }
 
+export interface BacklinkWithContext {
+  linkId: string;
+  sourcePageId: string;
+  sourcePageTitle?: string;
+  sourcePageIcon?: string;
+  blockId?: string;
+  linkText?: string;
+  position?: number;
+  contextSnippet?: string;
+  updatedAt?: string;
+}
+
 @Injectable({ providedIn: 'root' })
 export class PageLinkApiService {
   private base = '/api/page-links';
@@ -46,6 +58,11 @@ export class PageLinkApiService {
     return this.http.get<PageLink[]>(`${this.base}/to/${pageId}`);
   }
 
+  /** Get backlinks TO a page with source title/icon and surrounding sentence */
+  getBacklinksWithContext(pageId: string): Observable<BacklinkWithContext[]> {
+    return this.http.get<BacklinkWithContext[]>(`${this.base}/to/${pageId}/context`);
+  }
+
   /** Convenience: fetch Page objects that link to given page */
   getBacklinkPages(pageId: string) {
     return this.http.get<any[]>(`${this.base}/${pageId}/backlink-pages`);
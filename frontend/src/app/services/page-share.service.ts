@@ -17,6 +17,27 @@ export interface PageShare {
   isPublic: boolean;
 }
 
+export interface SharedWithMeItem {
+  shareId: string;
+  pageId: string;
+  title: string;
+  icon?: string;
+  ownerId: string;
+  ownerUsername?: string;
+  permission: string;
+  sharedByUserId: string;
+  sharedAt: string;
+  expiresAt?: string;
+  updatedAt: string;
+}
+
+export interface SharedWithMeResponse {
+  items: SharedWithMeItem[];
+  total: number;
+  page: number;
+  size: number;
+}
+
 export interface Permission {
   value: string;
   description: string;
@@ -104,6 +125,12 @@ export class PageShareService {
     return this.http.get<PageShare[]>('/api/shares/with-user');
   }
 
+  getSharedWithMe(page = 0, size = 20): Observable<SharedWithMeResponse> {
+    return this.http.get<SharedWithMeResponse>('/api/shares/shared-with-me', {
+      params: { page: page.toString(), size: size.toString() }
+    });
+  }
+
   getShareByLink(shareLink: string): Observable<PageShare> {
     return this.http.get<PageShare>(`/api/shares/link/${shareLink}`);
   }
@@ -1,5 +1,4 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
 import { BehaviorSubject, Observable } from 'rxjs';
 
 export interface CursorPosition {
@@ -20,6 +19,24 @@ export interface UserPresence {
   lastSeen: Date;
 }
 
+// Per-user changes since the previous tick. cursor / selection replace the value;
+// cursorDelta / selectionDelta patch changed fields of it (null removes a field).
+interface CursorUpdate {
+  userId: string;
+  cursor?: any;
+  cursorDelta?: Record<string, any>;
+  selection?: any;
+  selectionDelta?: Record<string, any>;
+}
+
+interface PresenceMessage {
+  type: 'roster' | 'join' | 'leave' | 'cursors';
+  participants?: UserPresence[];
+  participant?: UserPresence;
+  userId?: string;
+  updates?: CursorUpdate[];
+}
+
 @Injectable({
   providedIn: 'root'
 })
@@ -27,89 +44,127 @@ export class PresenceService {
   private currentPageId: string | null = null;
   private currentUserId: string | null = null;
   private currentUsername: string | null = null;
-  private presenceInterval: any;
+  private socket: WebSocket | null = null;
+  private heartbeatInterval: any;
+  private reconnectTimeout: any;
+  private reconnectDelay = 1000;
+  private roster = new Map<string, UserPresence>();
   private presenceSubject = new BehaviorSubject<UserPresence[]>([]);
 
-  constructor(private http: HttpClient) {}
+  constructor() {}
 
   initializePresence(pageId: string, userId: string, username: string): void {
+    this.disconnect();
     this.currentPageId = pageId;
     this.currentUserId = userId;
     this.currentUsername = username;
 
-    // Start presence updates
-    this.startPresenceUpdates();
+    this.connect();
   }
 
   updateCursor(cursor: CursorPosition): void {
-    if (!this.currentPageId || !this.currentUserId) return;
-
-    this.http.post(`/api/collaborative/pages/${this.currentPageId}/presence`, {
-      userId: this.currentUserId,
-      username: this.currentUsername,
-      cursor,
-      lastSeen: new Date()
-    }).subscribe();
+    this.sendPresence({ type: 'cursor', cursor });
   }
 
   updateSelection(selection: SelectionPosition): void {
-    if (!this.currentPageId || !this.currentUserId) return;
-
-    this.http.post(`/api/collaborative/pages/${this.currentPageId}/presence`, {
-      userId: this.currentUserId,
-      username: this.currentUsername,
-      selection,
-      lastSeen: new Date()
-    }).subscribe();
+    this.sendPresence({ type: 'cursor', selection });
   }
 
   getPresence(): Observable<UserPresence[]> {
     return this.presenceSubject.asObservable();
   }
 
-  private startPresenceUpdates(): void {
-    if (this.presenceInterval) {
-      clearInterval(this.presenceInterval);
+  private connect(): void {
+    if (!this.currentPageId) return;
+
+    const protocol = window.location.protocol === 'https:' ? 'wss' : 'ws';
+    const socket = new WebSocket(`${protocol}://${window.location.host}/ws/presence?pageId=${encodeURIComponent(this.currentPageId)}`);
+    this.socket = socket;
+
+    socket.onopen = () => {
+      this.reconnectDelay = 1000;
+      // The server drops sessions it has not heard from in 30 seconds
+      this.heartbeatInterval = setInterval(() => this.sendPresence({ type: 'heartbeat' }), 10000);
+    };
+    socket.onmessage = (event) => this.handleMessage(JSON.parse(event.data));
+    socket.onclose = () => {
+      clearInterval(this.heartbeatInterval);
+      if (this.socket !== socket) return;
+      this.socket = null;
+      // Reconnect with backoff until disconnect() is called
+      this.reconnectTimeout = setTimeout(() => this.connect(), this.reconnectDelay);
+      this.reconnectDelay = Math.min(this.reconnectDelay * 2, 30000);
+    };
+  }
+
+  private handleMessage(message: PresenceMessage): void {
+    switch (message.type) {
+      case 'roster':
+        this.roster.clear();
+        (message.participants || []).forEach(p => this.roster.set(p.userId, p));
+        break;
+      case 'join':
+        if (message.participant) {
+          this.roster.set(message.participant.userId, message.participant);
+        }
+        break;
+      case 'cursors':
+        (message.updates || []).forEach(update => this.applyCursorUpdate(update));
+        break;
+      case 'leave':
+        if (message.userId) {
+          this.roster.delete(message.userId);
+        }
+        break;
     }
+    this.presenceSubject.next(
+      Array.from(this.roster.values()).filter(p => p.userId !== this.currentUserId)
+    );
+  }
 
-    // Update presence every 5 seconds
-    this.presenceInterval = setInterval(() => {
-      this.loadPresence();
-    }, 5000);
+  private applyCursorUpdate(update: CursorUpdate): void {
+    const presence = this.roster.get(update.userId);
+    if (!presence) return;
 
-    // Load initial presence
-    this.loadPresence();
+    const next: UserPresence = { ...presence, lastSeen: new Date() };
+    if ('cursor' in update) next.cursor = update.cursor;
+    if (update.cursorDelta) next.cursor = this.applyPatch(presence.cursor, update.cursorDelta);
+    if ('selection' in update) next.selection = update.selection;
+    if (update.selectionDelta) next.selection = this.applyPatch(presence.selection, update.selectionDelta);
+    this.roster.set(update.userId, next);
   }
 
-  private loadPresence(): void {
-    if (!this.currentPageId) return;
+  private applyPatch(value: any, patch: Record<string, any>): any {
+    const patched = { ...(value || {}) };
+    Object.entries(patch).forEach(([key, fieldValue]) => {
+      if (fieldValue === null) {
+        delete patched[key];
+      } else {
+        patched[key] = fieldValue;
+      }
+    });
+    return patched;
+  }
 
-    this.http.get<UserPresence[]>(`/api/collaborative/pages/${this.currentPageId}/presence`)
-      .subscribe({
-        next: (presence) => {
-          this.presenceSubject.next(presence);
-        },
-        error: (error) => {
-          console.error('Error loading presence:', error);
-        }
-      });
+  private sendPresence(message: object): void {
+    if (this.socket && this.socket.readyState === WebSocket.OPEN) {
+      this.socket.send(JSON.stringify(message));
+    }
   }
 
   disconnect(): void {
-    if (this.presenceInterval) {
-      clearInterval(this.presenceInterval);
-      this.presenceInterval = null;
-    }
+    clearInterval(this.heartbeatInterval);
+    clearTimeout(this.reconnectTimeout);
 
-    if (this.currentPageId && this.currentUserId) {
-      this.http.post(`/api/collaborative/pages/${this.currentPageId}/disconnect`, {
-        userId: this.currentUserId
-      }).subscribe();
-    }
+    // Closing the socket removes us from the page's roster
+    const socket = this.socket;
+    this.socket = null;
+    socket?.close();
 
     this.currentPageId = null;
     this.currentUserId = null;
     this.currentUsername = null;
+    this.roster.clear();
     this.presenceSubject.next([]);
   }
-} 
\ No newline at end of file
+}